@@ -0,0 +1,50 @@
+package com.example.time_tracker.config;
+
+import com.example.time_tracker.service.impl.ProjectMembershipServiceImpl;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.UUID;
+
+/*
+Кэши Spring создаются с общей спецификацией spring.cache.caffeine.spec.
+Кэш назначений projectMemberships сбрасывается только на экземпляре, изменившем назначения,
+поэтому у него своя спецификация с коротким временем жизни: на остальных экземплярах
+назначения устаревают не дольше этого времени.
+Кэш второго уровня Hibernate работает через JCache с настройками регионов из hibernate-jcache.conf.
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> membershipCacheCustomizer(
+            @Value("${time-tracker.memberships.cache-spec:maximumSize=10000,expireAfterWrite=30s,recordStats}") String spec) {
+        return cacheManager -> cacheManager.registerCustomCache(ProjectMembershipServiceImpl.CACHE,
+                Caffeine.from(spec).build());
+    }
+
+//    Менеджер JCache для регионов Hibernate создается отдельно для каждого контекста приложения.
+//    Провайдер Caffeine выдает один менеджер на URI, а Hibernate закрывает его вместе с фабрикой сессий,
+//    поэтому с общим менеджером закрытие одного контекста, например вытесненного из кэша контекстов
+//    тестов, закрывало кэши второго уровня остальных. Фрагмент URI делает менеджер отдельным,
+//    а файл настроек остается тем же.
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(
+            @Value("${spring.jpa.properties.hibernate.javax.cache.uri:hibernate-jcache.conf}") String config) {
+        return properties -> {
+            CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+            URI uri = URI.create("classpath:" + config + "#" + UUID.randomUUID());
+            properties.put(ConfigSettings.CACHE_MANAGER, provider.getCacheManager(uri, provider.getDefaultClassLoader()));
+        };
+    }
+}
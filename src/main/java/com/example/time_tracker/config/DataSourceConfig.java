@@ -0,0 +1,77 @@
+package com.example.time_tracker.config;
+
+import com.example.time_tracker.util.datasource.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Маршрутизация соединений между основной базой и репликами.
+Приложение работает через LazyConnectionDataSourceProxy: физическое соединение берется
+только при первом запросе, когда транзакция уже отметила его как read-only.
+Транзакции с readOnly = true получают соединение от реплик, остальные и запросы вне транзакций - от основной базы.
+Реплики задаются свойствами spring.datasource.replicas[*] (url, username, password, hikari.*),
+без них все соединения выдает основная база.
+Реплика может отставать, поэтому с нее допускаются только чтения, которым можно быть устаревшими
+на время задержки репликации: списки пользователей, проектов и записей, страницы, выгрузки и отчеты.
+С основной базы читаются (PrimaryReads): пользователь для аутентификации и кэша loginDetails,
+участие в проектах для кэша projectMemberships и проверок прав, получение пользователя, проекта
+или записи по id, чтобы ответ и ETag сразу после изменения были актуальными.
+Кэш второго уровня и кэш запросов из транзакций на реплике не заполняются (ReplicaCacheMode).
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String REPLICAS = "spring.datasource.replicas";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(HikariDataSource primaryDataSource, Environment environment,
+                                               ObjectProvider<MeterRegistry> meterRegistry,
+                                               @Value("${time-tracker.datasource.replica-retry-interval:30000}") long retryInterval) {
+        Binder binder = Binder.get(environment);
+        List<DataSourceProperties> replicaProperties = binder.bind(REPLICAS, Bindable.listOf(DataSourceProperties.class))
+                .orElse(List.of());
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            HikariDataSource replica = replicaProperties.get(i).initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            binder.bind(REPLICAS + "[" + i + "].hikari", Bindable.ofInstance(replica));
+//            Пулы реплик не являются бинами, поэтому метрики hikaricp для них подключаются здесь
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(replica);
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, TimeUnit.MILLISECONDS.toNanos(retryInterval));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
@@ -1,20 +1,29 @@
 package com.example.time_tracker.config;
 
 import com.example.time_tracker.filter.JwtAuthFilter;
+import com.example.time_tracker.service.auth.BoundedPasswordEncoder;
 import com.example.time_tracker.service.auth.LoginDetailsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -30,29 +39,56 @@ public class SecurityConfig {
     private final LoginDetailsService detailsService;
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   AuthenticationProvider authenticationProvider) throws Exception {
         return http.csrf(AbstractHttpConfigurer::disable)
                 // Настройка доступа к конечным точкам
-                .authorizeHttpRequests(auth -> auth.requestMatchers("api/auth/signin").permitAll())
-                .authorizeHttpRequests(auth -> auth.requestMatchers("api/user/records/**", "api/projects/user", "api/user").hasRole("USER"))
-                .authorizeHttpRequests(auth -> auth.requestMatchers("/api/admin/**", "/api/users/**", "/api/projects/**", "/api/auth/signup").hasRole("ADMIN"))
+                .authorizeHttpRequests(auth -> auth.requestMatchers("api/auth/signin", "api/auth/refresh", "/actuator/health").permitAll())
+                .authorizeHttpRequests(auth -> auth.requestMatchers("api/user/records/**", "api/user/timer/**", "api/projects/user", "api/user").hasRole("USER"))
+                .authorizeHttpRequests(auth -> auth.requestMatchers("/api/admin/**", "/api/users/**", "/api/projects/**", "/api/auth/signup", "/actuator/**").hasRole("ADMIN"))
                 .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
                 .sessionManagement(manager -> manager.sessionCreationPolicy(STATELESS))
-                .authenticationProvider(authenticationProvider())
+                .authenticationProvider(authenticationProvider)
                 .addFilterBefore(authFilter, UsernamePasswordAuthenticationFilter.class)
                 .build();
     }
 
+//    Сборщик метрик Prometheus не может получить JWT администратора, поэтому /actuator/prometheus
+//    обслуживается отдельной цепочкой с Basic аутентификацией по учетной записи из свойств
+//    time-tracker.metrics.scrape-username и time-tracker.metrics.scrape-password.
+//    Пароль задается в формате DelegatingPasswordEncoder, например {bcrypt}$2a$10$...
+//    Без этих свойств цепочка не создается и метрики, как и остальные конечные точки actuator, доступны администратору
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Order(1)
+    @ConditionalOnProperty("time-tracker.metrics.scrape-username")
+    public SecurityFilterChain prometheusFilterChain(HttpSecurity http,
+                                                     @Value("${time-tracker.metrics.scrape-username}") String username,
+                                                     @Value("${time-tracker.metrics.scrape-password}") String password) throws Exception {
+        DaoAuthenticationProvider scrapeProvider = new DaoAuthenticationProvider();
+        scrapeProvider.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername(username).password(password).roles("METRICS").build()));
+        scrapeProvider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+        return http.securityMatcher("/actuator/prometheus")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasRole("METRICS"))
+                .httpBasic(Customizer.withDefaults())
+                .sessionManagement(manager -> manager.sessionCreationPolicy(STATELESS))
+                .authenticationManager(new ProviderManager(scrapeProvider))
+                .build();
+    }
+
+//    BCrypt выполняется на отдельном ограниченном пуле, а не на потоках запросов
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${time-tracker.login.threads:2}") int threads,
+                                           @Value("${time-tracker.login.queue-capacity:32}") int queueCapacity) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity);
     }
 
     @Bean
-    public AuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(detailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
 
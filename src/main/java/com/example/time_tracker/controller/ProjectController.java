@@ -2,9 +2,11 @@ package com.example.time_tracker.controller;
 
 import com.example.time_tracker.model.dto.ProjectDto;
 import com.example.time_tracker.service.ProjectService;
+import com.example.time_tracker.util.ETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
@@ -46,15 +48,25 @@ public class ProjectController {
 
     @GetMapping("/projects/{id}")
     public ResponseEntity<ProjectDto> getProject(@PathVariable Long id) {
-        return ResponseEntity.ok().body(service.findById(id));
+        ProjectDto dto = service.findById(id);
+        return ETags.ok(dto, ProjectDto::getVersion);
     }
 
     @PutMapping("/projects/{id}")
-    public ResponseEntity<?> updateProject(@PathVariable Long id, @RequestBody @Valid ProjectDto projectDto, BindingResult result) {
+    public ResponseEntity<?> updateProject(@PathVariable Long id, @RequestBody @Valid ProjectDto projectDto, BindingResult result,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (result.hasErrors())
             return ResponseEntity.badRequest().body(result.getAllErrors().stream()
                     .map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.toList()));
-        return ResponseEntity.ok().body(service.updateById(id, projectDto));
+        ProjectDto dto = service.updateById(id, projectDto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(dto, ProjectDto::getVersion);
+    }
+
+    @PatchMapping("/projects/{id}")
+    public ResponseEntity<ProjectDto> patchProject(@PathVariable Long id, @RequestBody ProjectDto projectDto,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ProjectDto dto = service.patchById(id, projectDto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(dto, ProjectDto::getVersion);
     }
 
     @DeleteMapping("/projects/{id}")
@@ -1,15 +1,25 @@
 package com.example.time_tracker.controller;
 
+import com.example.time_tracker.model.dto.RecordBatchItemDto;
+import com.example.time_tracker.model.dto.RecordBatchResultDto;
 import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.RecordOverlapDto;
+import com.example.time_tracker.model.dto.RecordPageDto;
 import com.example.time_tracker.service.RecordService;
+import com.example.time_tracker.util.ETags;
+import com.example.time_tracker.util.export.ExportFormat;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,28 +31,67 @@ public class RecordController {
     private final RecordService service;
 
     @GetMapping("/user/records")
-    public ResponseEntity<List<RecordDto>> allRecords() {
-        return ResponseEntity.ok().body(service.findAll());
+    public ResponseEntity<List<RecordDto>> allRecords(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok().body(service.findAll(from, to));
     }
 
     @GetMapping("/user/records/project/{id}")
-    public ResponseEntity<List<RecordDto>> allRecordsForCurrentUserByProjectId(@PathVariable Long id) {
-        return ResponseEntity.ok().body(service.findAllForCurrentUserByProjectId(id));
+    public ResponseEntity<List<RecordDto>> allRecordsForCurrentUserByProjectId(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok().body(service.findAllForCurrentUserByProjectId(id, from, to));
     }
 
     @GetMapping("/admin/records")
-    public ResponseEntity<List<RecordDto>> allRecordsGenerally() {
-        return ResponseEntity.ok().body(service.findAllGenerally());
+    public ResponseEntity<RecordPageDto> allRecordsGenerally(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String next,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok().body(service.findAllGenerally(from, to, next, size));
     }
 
     @GetMapping("/admin/records/user/{id}")
-    public ResponseEntity<List<RecordDto>> allRecordsByUserId(@PathVariable Long id) {
-        return ResponseEntity.ok().body(service.findAllByUserId(id));
+    public ResponseEntity<RecordPageDto> allRecordsByUserId(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String next,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok().body(service.findAllByUserId(id, from, to, next, size));
     }
 
     @GetMapping("/admin/records/project/{id}")
-    public ResponseEntity<List<RecordDto>> allRecordsByProjectId(@PathVariable Long id) {
-        return ResponseEntity.ok().body(service.findAllByProjectId(id));
+    public ResponseEntity<RecordPageDto> allRecordsByProjectId(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String next,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok().body(service.findAllByProjectId(id, from, to, next, size));
+    }
+
+    @GetMapping("/user/records/overlaps")
+    public ResponseEntity<List<RecordOverlapDto>> overlaps() {
+        return ResponseEntity.ok().body(service.findOverlapsForCurrentUser());
+    }
+
+    @GetMapping("/admin/records/user/{id}/overlaps")
+    public ResponseEntity<List<RecordOverlapDto>> overlapsByUserId(@PathVariable Long id) {
+        return ResponseEntity.ok().body(service.findOverlapsByUserId(id));
+    }
+
+    @GetMapping("/admin/records/export")
+    public ResponseEntity<StreamingResponseBody> exportRecords(@RequestParam(defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        StreamingResponseBody body = out -> service.exportAll(exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"records." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
 
     @PostMapping("/user/records/new/project/{id}")
@@ -54,17 +103,32 @@ public class RecordController {
         return ResponseEntity.created(URI.create("/user/records/" )).body(dto);
     }
 
+    @PostMapping("/user/records/batch")
+    public ResponseEntity<List<RecordBatchResultDto>> createRecords(@RequestBody List<RecordBatchItemDto> items) {
+        return ResponseEntity.ok().body(service.createBatch(items));
+    }
+
     @GetMapping("user/records/{id}")
     public ResponseEntity<RecordDto> getRecord(@PathVariable Long id) {
-        return ResponseEntity.ok().body(service.findById(id));
+        RecordDto dto = service.findById(id);
+        return ETags.ok(dto, RecordDto::getVersion);
     }
 
     @PutMapping("user/records/{id}")
-    public ResponseEntity<?> updateRecord(@PathVariable Long id, @RequestBody @Valid RecordDto recordDto, BindingResult result) {
+    public ResponseEntity<?> updateRecord(@PathVariable Long id, @RequestBody @Valid RecordDto recordDto, BindingResult result,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (result.hasErrors())
             return ResponseEntity.badRequest().body(result.getAllErrors().stream()
                     .map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.toList()));
-        return ResponseEntity.ok().body(service.updateById(id, recordDto));
+        RecordDto dto = service.updateById(id, recordDto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(dto, RecordDto::getVersion);
+    }
+
+    @PatchMapping("user/records/{id}")
+    public ResponseEntity<RecordDto> patchRecord(@PathVariable Long id, @RequestBody RecordDto recordDto,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        RecordDto dto = service.patchById(id, recordDto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(dto, RecordDto::getVersion);
     }
 
     @DeleteMapping("user/records/{id}")
@@ -0,0 +1,32 @@
+package com.example.time_tracker.controller;
+
+import com.example.time_tracker.model.dto.HoursReportDto;
+import com.example.time_tracker.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final ReportService service;
+
+    @GetMapping("/admin/reports/hours")
+    public ResponseEntity<List<HoursReportDto>> hours(
+            @RequestParam(defaultValue = "user,project,day") List<String> groupBy,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok().body(service.findHours(groupBy, from, to));
+    }
+
+    @PostMapping("/admin/reports/rollup/rebuild")
+    public ResponseEntity<Integer> rebuildRollup() {
+        return ResponseEntity.ok().body(service.rebuildRollup());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.time_tracker.controller;
+
+import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.TimerDto;
+import com.example.time_tracker.service.TimerService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class TimerController {
+
+    private final TimerService service;
+
+    @GetMapping("/user/timer")
+    public ResponseEntity<TimerDto> currentTimer() {
+        return service.current().map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/user/timer/start")
+    public ResponseEntity<?> startTimer(@RequestBody @Valid TimerDto timerDto, BindingResult result) {
+        if (result.hasErrors())
+            return ResponseEntity.badRequest().body(result.getAllErrors().stream()
+                    .map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.toList()));
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.start(timerDto));
+    }
+
+    @PostMapping("/user/timer/stop")
+    public ResponseEntity<RecordDto> stopTimer() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(service.stop());
+    }
+}
@@ -2,15 +2,19 @@ package com.example.time_tracker.controller;
 
 import com.example.time_tracker.model.auth.RegistrationRequest;
 import com.example.time_tracker.service.UserService;
+import com.example.time_tracker.model.dto.IdListDto;
 import com.example.time_tracker.model.dto.UserDto;
+import com.example.time_tracker.util.ETags;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -37,15 +41,24 @@ public class UserController {
 
     @GetMapping("/users/{id}")
     public ResponseEntity<UserDto> getUser(@PathVariable Long id) {
-        return ResponseEntity.ok().body(userService.findById(id));
+        UserDto dto = userService.findById(id);
+        return ETags.ok(dto, UserDto::getVersion);
     }
 
     @PutMapping("/users/{id}")
-    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody @Valid RegistrationRequest request, BindingResult result) {
+    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody @Valid RegistrationRequest request, BindingResult result,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (result.hasErrors())
-            return ResponseEntity.badRequest().body(result.getAllErrors().stream()
-                    .map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.toList()));
-        return ResponseEntity.ok().body(userService.updateById(id, request));
+            return badRequest(result);
+        UserDto dto = userService.updateById(id, request, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(dto, UserDto::getVersion);
+    }
+
+    @PatchMapping("/users/{id}")
+    public ResponseEntity<UserDto> patchUser(@PathVariable Long id, @RequestBody RegistrationRequest request,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        UserDto dto = userService.patchById(id, request, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(dto, UserDto::getVersion);
     }
 
     @DeleteMapping("/users/{id}")
@@ -65,4 +78,45 @@ public class UserController {
         userService.deleteUserProjectRelation(userId, projectId);
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("/users/{userId}/projects")
+    public ResponseEntity<?> createUserProjectRelations(@PathVariable Long userId,
+                                                        @RequestBody @Valid IdListDto projects, BindingResult result) {
+        if (result.hasErrors())
+            return badRequest(result);
+        userService.createUserProjectRelations(Set.of(userId), projects.getIds());
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/users/{userId}/projects")
+    public ResponseEntity<?> deleteUserProjectRelations(@PathVariable Long userId,
+                                                        @RequestBody @Valid IdListDto projects, BindingResult result) {
+        if (result.hasErrors())
+            return badRequest(result);
+        userService.deleteUserProjectRelations(Set.of(userId), projects.getIds());
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/projects/{projectId}/users")
+    public ResponseEntity<?> createProjectUserRelations(@PathVariable Long projectId,
+                                                        @RequestBody @Valid IdListDto users, BindingResult result) {
+        if (result.hasErrors())
+            return badRequest(result);
+        userService.createUserProjectRelations(users.getIds(), Set.of(projectId));
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/projects/{projectId}/users")
+    public ResponseEntity<?> deleteProjectUserRelations(@PathVariable Long projectId,
+                                                        @RequestBody @Valid IdListDto users, BindingResult result) {
+        if (result.hasErrors())
+            return badRequest(result);
+        userService.deleteUserProjectRelations(users.getIds(), Set.of(projectId));
+        return ResponseEntity.ok().build();
+    }
+
+    private static ResponseEntity<List<String>> badRequest(BindingResult result) {
+        return ResponseEntity.badRequest().body(result.getAllErrors().stream()
+                .map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.toList()));
+    }
 }
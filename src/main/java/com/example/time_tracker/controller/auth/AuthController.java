@@ -1,9 +1,11 @@
 package com.example.time_tracker.controller.auth;
 
 import com.example.time_tracker.model.auth.AuthRequest;
+import com.example.time_tracker.model.auth.RefreshRequest;
 import com.example.time_tracker.model.auth.RegistrationRequest;
 import com.example.time_tracker.model.dto.UserDto;
 import com.example.time_tracker.service.auth.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
@@ -31,10 +33,19 @@ public class AuthController {
     }
 
     @PostMapping("/signin")
-    public ResponseEntity<?> signIn(@RequestBody @Valid AuthRequest authRequest, BindingResult result) {
+    public ResponseEntity<?> signIn(@RequestBody @Valid AuthRequest authRequest, BindingResult result,
+                                    HttpServletRequest servletRequest) {
         if (result.hasErrors())
             return ResponseEntity.badRequest().body(result.getAllErrors().stream()
                     .map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.toList()));
-        return ResponseEntity.ok().body(service.authenticateAndGetToken(authRequest));
+        return ResponseEntity.ok().body(service.authenticateAndGetToken(authRequest, servletRequest.getRemoteAddr()));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody @Valid RefreshRequest refreshRequest, BindingResult result) {
+        if (result.hasErrors())
+            return ResponseEntity.badRequest().body(result.getAllErrors().stream()
+                    .map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.toList()));
+        return ResponseEntity.ok().body(service.refresh(refreshRequest));
     }
 }
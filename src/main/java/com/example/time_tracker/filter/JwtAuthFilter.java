@@ -1,13 +1,20 @@
 package com.example.time_tracker.filter;
 
+import com.example.time_tracker.model.User;
 import com.example.time_tracker.service.auth.JwtService;
+import com.example.time_tracker.service.auth.LoginDetails;
 import com.example.time_tracker.service.auth.LoginDetailsService;
+import com.example.time_tracker.service.auth.TokenClaims;
+import com.example.time_tracker.service.auth.TokenRevocationService;
+import com.example.time_tracker.util.Role;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
@@ -20,14 +27,36 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/*
+Аутентификация запроса по токену доступа из заголовка Authorization.
+Время работы фильтра измеряется таймером time_tracker.auth.filter отдельно для двух этапов:
+phase=verify - разбор и проверка подписи токена, phase=lookup - проверка отзыва и получение пользователя
+из токена или из базы.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     public static final String BEARER_PREFIX = "Bearer ";
     public static final String HEADER_NAME = "Authorization";
+    private static final String TIMER_NAME = "time_tracker.auth.filter";
     private final JwtService jwtService;
     private final LoginDetailsService loginDetailsService;
+    private final TokenRevocationService revocationService;
+    private final Timer verifyTimer;
+    private final Timer lookupTimer;
+
+//    Аутентификация по данным токена без загрузки пользователя из базы
+    @Value("${token.stateless:false}")
+    private boolean stateless;
+
+    public JwtAuthFilter(JwtService jwtService, LoginDetailsService loginDetailsService,
+                         TokenRevocationService revocationService, MeterRegistry meterRegistry) {
+        this.jwtService = jwtService;
+        this.loginDetailsService = loginDetailsService;
+        this.revocationService = revocationService;
+        this.verifyTimer = Timer.builder(TIMER_NAME).tag("phase", "verify").register(meterRegistry);
+        this.lookupTimer = Timer.builder(TIMER_NAME).tag("phase", "lookup").register(meterRegistry);
+    }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -41,15 +70,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-//        Обрезаем префикс и получаем имя пользователя из токена
+//        Обрезаем префикс и проверяем токен, подпись и срок действия проверяются за один разбор
         String jwt = authHeader.substring(BEARER_PREFIX.length());
-        String username = jwtService.extractUsername(jwt);
+        TokenClaims claims = verifyTimer.record(() -> jwtService.verify(jwt));
+        String username = claims.getSubject();
 
         if (StringUtils.isNotEmpty(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = loginDetailsService.loadUserByUsername(username);
+            UserDetails userDetails = lookupTimer.record(() -> lookup(claims));
 
-//            Если токен валиден, то аутентифицируем пользователя
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+//            Токен выпущен для этого пользователя и не отозван, аутентифицируем его
+            if (userDetails != null && username.equals(userDetails.getUsername())) {
                 SecurityContext context = SecurityContextHolder.createEmptyContext();
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
@@ -62,4 +92,27 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+//    Пользователь, для которого выпущен токен, null если токен отозван
+    private UserDetails lookup(TokenClaims claims) {
+        if (revocationService.isRevoked(claims))
+            return null;
+        return stateless && isComplete(claims)
+                ? fromClaims(claims)
+                : loginDetailsService.loadUserByUsername(claims.getSubject());
+    }
+
+//    Токены, выпущенные до появления id пользователя в токене, проверяются по базе
+    private static boolean isComplete(TokenClaims claims) {
+        return claims.getUserId() != null && claims.getRoles().size() == 1;
+    }
+
+//    Пользователь восстанавливается из проверенного токена, пароль не нужен
+    private static LoginDetails fromClaims(TokenClaims claims) {
+        return new LoginDetails(User.builder()
+                .id(claims.getUserId())
+                .username(claims.getSubject())
+                .role(Role.valueOf(claims.getRoles().get(0)))
+                .build());
+    }
 }
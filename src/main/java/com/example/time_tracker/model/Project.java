@@ -1,7 +1,10 @@
 package com.example.time_tracker.model;
 
+import com.example.time_tracker.util.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -11,16 +14,22 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "projects")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "projects")
 public class Project {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(name = "name", unique = true, nullable = false)
     private String name;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
     @OneToMany(mappedBy = "project")
@@ -29,5 +38,6 @@ public class Project {
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
     @ManyToMany(mappedBy = "projects")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "projects-users")
     private List<User> users;
 }
@@ -1,5 +1,6 @@
 package com.example.time_tracker.model;
 
+import com.example.time_tracker.util.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -16,16 +17,16 @@ public class Record {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "project_id", referencedColumnName = "id")
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
@@ -43,4 +44,8 @@ public class Record {
     @Temporal(TemporalType.TIMESTAMP)
     @DateTimeFormat(pattern = "yyyy-MM-dd hh:mm:ss")
     private Date endTime;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -0,0 +1,35 @@
+package com.example.time_tracker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "record_daily_rollup")
+public class RecordDailyRollup {
+
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "project_id")
+    private Long projectId;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "total_seconds", nullable = false)
+    private Long totalSeconds;
+
+    @Column(name = "record_count", nullable = false)
+    private Integer recordCount;
+}
@@ -2,8 +2,11 @@ package com.example.time_tracker.model;
 
 
 import com.example.time_tracker.util.Role;
+import com.example.time_tracker.util.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -13,11 +16,13 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(name = "username", unique = true, nullable = false)
@@ -33,12 +38,17 @@ public class User {
     @Column(name = "roles", nullable = false)
     private Role role;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "user")
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
     private List<Record> records;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users-projects")
     @EqualsAndHashCode.Exclude
     @ToString.Exclude
     @JoinTable(
@@ -0,0 +1,15 @@
+package com.example.time_tracker.model.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshRequest {
+
+    @NotBlank(message = "Refresh token should not be empty")
+    private String refreshToken;
+}
@@ -0,0 +1,33 @@
+package com.example.time_tracker.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HoursReportDto {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long userId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long projectId;
+
+    private LocalDate day;
+
+    private Long totalSeconds;
+
+    private Long recordCount;
+
+//    Задается при группировке по пользователю или проекту: true, если пользователь или проект строки удален
+    private Boolean detached;
+}
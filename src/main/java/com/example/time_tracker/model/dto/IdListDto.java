@@ -0,0 +1,23 @@
+package com.example.time_tracker.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdListDto {
+
+    @NotEmpty(message = "Ids should not be empty")
+    @Size(max = 1000, message = "Ids should contain at most 1000 elements")
+    private Set<@NotNull(message = "Id should not be empty") @Positive Long> ids;
+}
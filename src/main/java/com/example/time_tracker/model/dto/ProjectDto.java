@@ -1,5 +1,7 @@
 package com.example.time_tracker.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
@@ -14,8 +16,13 @@ import lombok.NoArgsConstructor;
 public class ProjectDto {
 
     @Positive
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
 
     @NotBlank
     private String name;
+
+//    Версия выставляется сервером и передается клиенту также в заголовке ETag
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
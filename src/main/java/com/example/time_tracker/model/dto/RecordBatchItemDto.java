@@ -0,0 +1,21 @@
+package com.example.time_tracker.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordBatchItemDto {
+
+    @NotNull(message = "Project id should not be empty")
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long projectId;
+
+    @Valid
+    @NotNull(message = "Record should not be empty")
+    private RecordDto record;
+}
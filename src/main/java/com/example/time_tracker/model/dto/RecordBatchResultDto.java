@@ -0,0 +1,23 @@
+package com.example.time_tracker.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RecordBatchResultDto {
+
+//    Позиция элемента во входном массиве
+    private int index;
+
+//    Созданная запись, null если элемент отклонен
+    private RecordDto record;
+
+//    Причины отказа, null если запись создана
+    private List<String> errors;
+}
@@ -1,6 +1,7 @@
 package com.example.time_tracker.model.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.OptBoolean;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -14,6 +15,7 @@ import java.util.Date;
 public class RecordDto {
 
     @Positive
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
 
     private String description;
@@ -27,4 +29,8 @@ public class RecordDto {
     @PastOrPresent(message = "End time should not be greater than current time")
     @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss", lenient = OptBoolean.FALSE)
     private Date endTime;
+
+//    Версия выставляется сервером и передается клиенту также в заголовке ETag
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
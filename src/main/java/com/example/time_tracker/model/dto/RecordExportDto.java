@@ -0,0 +1,33 @@
+package com.example.time_tracker.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordExportDto {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long id;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long userId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long projectId;
+
+    private String description;
+
+    @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    private Date startTime;
+
+    @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    private Date endTime;
+}
@@ -0,0 +1,26 @@
+package com.example.time_tracker.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.util.Date;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordOverlapDto {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long recordId;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long overlappingRecordId;
+
+//    Общий для обеих записей отрезок времени
+    @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    private Date start;
+
+    @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    private Date end;
+}
@@ -0,0 +1,20 @@
+package com.example.time_tracker.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordPageDto {
+
+    private List<RecordDto> records;
+
+//    Курсор следующей страницы, null если страница последняя
+    private String next;
+}
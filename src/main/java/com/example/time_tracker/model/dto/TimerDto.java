@@ -0,0 +1,26 @@
+package com.example.time_tracker.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.util.Date;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimerDto {
+
+    @NotNull(message = "Project id should not be empty")
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long projectId;
+
+    private String description;
+
+//    Время запуска выставляет сервер
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonFormat(pattern="yyyy-MM-dd HH:mm:ss")
+    private Date startTime;
+}
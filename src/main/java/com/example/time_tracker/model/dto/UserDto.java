@@ -1,5 +1,7 @@
 package com.example.time_tracker.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,6 +15,7 @@ import lombok.NoArgsConstructor;
 public class UserDto {
 
     @Positive
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
 
     @Size(min = 3, max = 100, message = "Username should be between 3 and 100 characters")
@@ -27,4 +30,8 @@ public class UserDto {
     @NotBlank(message = "Role should not be empty")
     @Pattern(regexp = "ROLE_USER|ROLE_ADMIN", message = "Role should be like ROLE_USER or ROLE_ADMIN")
     private String role;
+
+//    Версия выставляется сервером и передается клиенту также в заголовке ETag
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
@@ -0,0 +1,29 @@
+package com.example.time_tracker.repository;
+
+import com.example.time_tracker.model.ActiveTimer;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+
+public interface ActiveTimerRepository extends JpaRepository<ActiveTimer, Long> {
+
+//    Сохранение запущенного таймера, если у пользователя еще нет таймера; возвращает число вставленных строк
+    @Modifying
+    @Query(value = """
+            INSERT INTO active_timers (user_id, project_id, description, start_time)
+            VALUES (:userId, :projectId, :description, :startTime)
+            ON CONFLICT (user_id) DO NOTHING""", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "active_timers"))
+    int insertIfAbsent(@Param("userId") Long userId, @Param("projectId") Long projectId,
+                       @Param("description") String description, @Param("startTime") Date startTime);
+
+    @Modifying
+    @Query("delete from ActiveTimer t where t.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -1,9 +1,89 @@
 package com.example.time_tracker.repository;
 
 import com.example.time_tracker.model.Project;
+import com.example.time_tracker.model.dto.ProjectDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 public interface ProjectRepository extends JpaRepository<Project, Long> {
     boolean existsByName(String name);
+
+//    Результаты запросов к проектам кэшируются и сбрасываются при любом изменении таблиц запроса.
+//    Списки выбираются сразу в ProjectDto, сущности для них не создаются
+    @Query("select new com.example.time_tracker.model.dto.ProjectDto(p.id, p.name, p.version) from Project p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ProjectDto> findAllDtos();
+
+//    Проекты, назначенные пользователю
+    @Query("select new com.example.time_tracker.model.dto.ProjectDto(p.id, p.name, p.version) "
+            + "from Project p join p.users u where u.id = :userId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ProjectDto> findAllByUserId(@Param("userId") Long userId);
+
+//    Идентификаторы проектов, назначенных пользователю, читаются по первичному ключу user_project
+    @Query(value = "SELECT project_id FROM user_project WHERE user_id = :userId", nativeQuery = true)
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+//    Какие из проектов с id из списка назначены пользователю, одним запросом по первичному ключу user_project
+    @Query(value = "SELECT project_id FROM user_project WHERE user_id = :userId AND project_id IN (:ids)",
+            nativeQuery = true)
+    List<Long> findIdsByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+//    Назначен ли пользователю проект, проверяется по первичному ключу user_project без загрузки сущностей
+    @Query(value = """
+            SELECT EXISTS (SELECT 1 FROM user_project WHERE user_id = :userId AND project_id = :projectId)""",
+            nativeQuery = true)
+    boolean existsMembership(@Param("userId") Long userId, @Param("projectId") Long projectId);
+
+//    Существующие проекты из списка id
+    @Query("select p.id from Project p where p.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+//    Назначение каждого пользователя из userIds на каждый проект из projectIds одним запросом без загрузки коллекций.
+//    Уже существующие назначения пропускаются, поэтому повтор запроса и параллельные одинаковые запросы безопасны.
+//    Объявленная таблица сбрасывает в кэше второго уровня только коллекции назначений и зависящие от нее запросы
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_project (user_id, project_id)
+            SELECT u.id, p.id FROM users u CROSS JOIN projects p
+            WHERE u.id IN (:userIds) AND p.id IN (:projectIds)
+            ON CONFLICT DO NOTHING""", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_project"))
+    int insertMemberships(@Param("userIds") Collection<Long> userIds, @Param("projectIds") Collection<Long> projectIds);
+
+//    Снятие каждого пользователя из userIds с каждого проекта из projectIds одним запросом без загрузки коллекций
+    @Modifying
+    @Query(value = "DELETE FROM user_project WHERE user_id IN (:userIds) AND project_id IN (:projectIds)",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_project"))
+    int deleteMemberships(@Param("userIds") Collection<Long> userIds, @Param("projectIds") Collection<Long> projectIds);
+
+//    Снятие всех пользователей с проекта перед его удалением, несохраненные изменения сначала сбрасываются в базу
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_project WHERE project_id = :projectId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_project"))
+    int deleteMembershipsByProjectId(@Param("projectId") Long projectId);
+
+//    Снятие пользователя со всех проектов перед его удалением, несохраненные изменения сначала сбрасываются в базу
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_project WHERE user_id = :userId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_project"))
+    int deleteMembershipsByUserId(@Param("userId") Long userId);
+
+//    Удаление проекта одним запросом без загрузки его коллекций.
+//    Hibernate при этом сбрасывает в кэше второго уровня проекты и коллекции, в которых они участвуют,
+//    контекст персистентности очищается, чтобы в нем не осталось удаленного проекта
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Project p where p.id = :id")
+    int deleteInBulkById(@Param("id") Long id);
 }
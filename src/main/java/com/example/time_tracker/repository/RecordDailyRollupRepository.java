@@ -0,0 +1,118 @@
+package com.example.time_tracker.repository;
+
+import com.example.time_tracker.model.RecordDailyRollup;
+import com.example.time_tracker.repository.projection.HoursAggregate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RecordDailyRollupRepository extends JpaRepository<RecordDailyRollup, Long> {
+
+//    Прибавление (или вычитание при отрицательных значениях) к строке свертки за день
+    @Modifying
+    @Query(value = """
+            INSERT INTO record_daily_rollup AS t (user_id, project_id, day, total_seconds, record_count)
+            VALUES (:userId, :projectId, :day, :seconds, :count)
+            ON CONFLICT (user_id, project_id, day) DO UPDATE
+            SET total_seconds = t.total_seconds + EXCLUDED.total_seconds,
+                record_count = t.record_count + EXCLUDED.record_count""", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int addDelta(@Param("userId") Long userId, @Param("projectId") Long projectId, @Param("day") LocalDate day,
+                 @Param("seconds") long seconds, @Param("count") int count);
+
+//    Удаление строк пользователя, в которых после вычитания не осталось записей
+    @Modifying
+    @Query(value = """
+            DELETE FROM record_daily_rollup
+            WHERE user_id = :userId AND day BETWEEN :from AND :to AND record_count <= 0""", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int deleteEmpty(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+//    Перенос строк удаляемого проекта в строки без проекта,
+//    так же как записи проекта получают project_id = NULL
+    @Modifying
+    @Query(value = """
+            INSERT INTO record_daily_rollup AS t (user_id, project_id, day, total_seconds, record_count)
+            SELECT user_id, NULL, day, SUM(total_seconds), SUM(record_count)
+            FROM record_daily_rollup WHERE project_id = :projectId
+            GROUP BY user_id, day
+            ON CONFLICT (user_id, project_id, day) DO UPDATE
+            SET total_seconds = t.total_seconds + EXCLUDED.total_seconds,
+                record_count = t.record_count + EXCLUDED.record_count""", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int foldProject(@Param("projectId") Long projectId);
+
+    @Modifying
+    @Query(value = "DELETE FROM record_daily_rollup WHERE project_id = :projectId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int deleteByProject(@Param("projectId") Long projectId);
+
+//    Перенос строк удаляемого пользователя в строки без пользователя
+    @Modifying
+    @Query(value = """
+            INSERT INTO record_daily_rollup AS t (user_id, project_id, day, total_seconds, record_count)
+            SELECT NULL, project_id, day, SUM(total_seconds), SUM(record_count)
+            FROM record_daily_rollup WHERE user_id = :userId
+            GROUP BY project_id, day
+            ON CONFLICT (user_id, project_id, day) DO UPDATE
+            SET total_seconds = t.total_seconds + EXCLUDED.total_seconds,
+                record_count = t.record_count + EXCLUDED.record_count""", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int foldUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM record_daily_rollup WHERE user_id = :userId", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int deleteByUser(@Param("userId") Long userId);
+
+//    Блокировка свертки на время пересчета, чтобы параллельные изменения записей
+//    дождались его окончания и применили свои изменения поверх
+    @Modifying
+    @Query(value = "LOCK TABLE record_daily_rollup IN EXCLUSIVE MODE", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    void lock();
+
+    @Modifying
+    @Query(value = "DELETE FROM record_daily_rollup", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int deleteAllRows();
+
+//    Полный пересчет свертки из записей, запись переходящая через полночь делится по дням
+    @Modifying
+    @Query(value = """
+            INSERT INTO record_daily_rollup(user_id, project_id, day, total_seconds, record_count)
+            SELECT r.user_id, r.project_id, CAST(d AS date),
+                   CAST(SUM(FLOOR(EXTRACT(EPOCH FROM (LEAST(r.end_time, d + INTERVAL '1 day') - GREATEST(r.start_time, d))))) AS bigint),
+                   COUNT(*)
+            FROM records r
+            CROSS JOIN LATERAL generate_series(date_trunc('day', r.start_time), r.end_time, INTERVAL '1 day') AS d
+            WHERE d < r.end_time
+            GROUP BY 1, 2, 3""", nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "record_daily_rollup"))
+    int fillFromRecords();
+
+//    Сумма отработанного времени за дни с from по to включительно.
+//    Неиспользуемые измерения группировки превращаются в NULL и схлопываются в одну группу
+    @Query(value = """
+            SELECT CASE WHEN :byUser THEN r.user_id END AS "userId",
+                   CASE WHEN :byProject THEN r.project_id END AS "projectId",
+                   CASE WHEN :byDay THEN r.day END AS "day",
+                   CAST(SUM(r.total_seconds) AS bigint) AS "totalSeconds",
+                   CAST(SUM(r.record_count) AS bigint) AS "recordCount"
+            FROM record_daily_rollup r
+            WHERE r.day BETWEEN :from AND :to
+            GROUP BY 1, 2, 3
+            ORDER BY 1, 2, 3""", nativeQuery = true)
+    List<HoursAggregate> sumHours(@Param("byUser") boolean byUser,
+                                  @Param("byProject") boolean byProject,
+                                  @Param("byDay") boolean byDay,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+}
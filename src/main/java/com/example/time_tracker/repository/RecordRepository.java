@@ -1,12 +1,120 @@
 package com.example.time_tracker.repository;
 
-import com.example.time_tracker.model.Project;
-import com.example.time_tracker.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.example.time_tracker.model.Record;
+import com.example.time_tracker.repository.projection.RecordInterval;
+import com.example.time_tracker.repository.projection.RecordView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RecordRepository extends JpaRepository<Record, Long> {
-    List<Record> findAllByUserAndProject(User user, Project project);
+
+//    Запись с данным id, если она принадлежит пользователю с данным id
+    Optional<Record> findByIdAndUserId(Long id, Long userId);
+
+//    Отвязка записей от удаляемого проекта одним запросом, так же как это делает ON DELETE SET NULL
+    @Modifying
+    @Query("update Record r set r.project = null where r.project.id = :projectId")
+    int detachProject(@Param("projectId") Long projectId);
+
+//    Отвязка записей от удаляемого пользователя одним запросом, так же как это делает ON DELETE SET NULL
+    @Modifying
+    @Query("update Record r set r.user = null where r.user.id = :userId")
+    int detachUser(@Param("userId") Long userId);
+
+//    Записи пользователя за период [from, to) в порядке начала
+    @Query(value = """
+            SELECT r.id, r.description, r.start_time AS "startTime", r.end_time AS "endTime", r.version
+            FROM records r
+            WHERE r.user_id = :userId AND r.start_time >= :from AND r.start_time < :to
+            ORDER BY r.start_time, r.id""", nativeQuery = true)
+    List<RecordView> findAllByUserId(@Param("userId") Long userId,
+                                     @Param("from") Date from, @Param("to") Date to);
+
+//    Записи пользователя по проекту за период [from, to) в порядке начала
+    @Query(value = """
+            SELECT r.id, r.description, r.start_time AS "startTime", r.end_time AS "endTime", r.version
+            FROM records r
+            WHERE r.user_id = :userId AND r.project_id = :projectId
+              AND r.start_time >= :from AND r.start_time < :to
+            ORDER BY r.start_time, r.id""", nativeQuery = true)
+    List<RecordView> findAllByUserIdAndProjectId(@Param("userId") Long userId, @Param("projectId") Long projectId,
+                                                 @Param("from") Date from, @Param("to") Date to);
+
+//    Страница всех записей за период [from, to) после курсора (start_time, id), от новых к старым
+    @Query(value = """
+            SELECT r.id, r.description, r.start_time AS "startTime", r.end_time AS "endTime", r.version
+            FROM records r
+            WHERE r.start_time >= :from AND r.start_time < :to
+              AND (r.start_time, r.id) < (:startTime, :id)
+            ORDER BY r.start_time DESC, r.id DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<RecordView> findPage(@Param("from") Date from, @Param("to") Date to,
+                              @Param("startTime") Date startTime, @Param("id") Long id, @Param("limit") int limit);
+
+//    Страница записей пользователя за период [from, to) после курсора (start_time, id), от новых к старым
+    @Query(value = """
+            SELECT r.id, r.description, r.start_time AS "startTime", r.end_time AS "endTime", r.version
+            FROM records r
+            WHERE r.user_id = :userId AND r.start_time >= :from AND r.start_time < :to
+              AND (r.start_time, r.id) < (:startTime, :id)
+            ORDER BY r.start_time DESC, r.id DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<RecordView> findPageByUserId(@Param("userId") Long userId, @Param("from") Date from, @Param("to") Date to,
+                                      @Param("startTime") Date startTime, @Param("id") Long id, @Param("limit") int limit);
+
+//    Страница записей проекта за период [from, to) после курсора (start_time, id), от новых к старым
+    @Query(value = """
+            SELECT r.id, r.description, r.start_time AS "startTime", r.end_time AS "endTime", r.version
+            FROM records r
+            WHERE r.project_id = :projectId AND r.start_time >= :from AND r.start_time < :to
+              AND (r.start_time, r.id) < (:startTime, :id)
+            ORDER BY r.start_time DESC, r.id DESC
+            LIMIT :limit""", nativeQuery = true)
+    List<RecordView> findPageByProjectId(@Param("projectId") Long projectId, @Param("from") Date from, @Param("to") Date to,
+                                         @Param("startTime") Date startTime, @Param("id") Long id, @Param("limit") int limit);
+
+//    Границы всех записей пользователя в порядке начала для поиска пар пересекающихся записей
+    @Query("select r.id as id, r.startTime as startTime, r.endTime as endTime from Record r "
+            + "where r.user.id = :userId order by r.startTime, r.id")
+    List<RecordInterval> findIntervalsByUserId(@Param("userId") Long userId);
+
+    /*
+    Записи пользователя, пересекающиеся с [start, end), кроме записи excludeId, в порядке начала.
+    Используется GiST индекс (user_id, tsrange(start_time, end_time)).
+    Сессия перед запросом не сбрасывается: несохраненные записи текущей транзакции
+    учитывает RecordOverlapServiceImpl, а пакетная вставка записей не разбивается на отдельные INSERT.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(value = """
+            SELECT r.id, r.start_time AS "startTime", r.end_time AS "endTime"
+            FROM records r
+            WHERE r.user_id = :userId AND tsrange(r.start_time, r.end_time) && tsrange(:start, :end)
+              AND r.start_time < :end AND r.id <> :excludeId
+            ORDER BY r.start_time, r.id""", nativeQuery = true)
+    List<RecordInterval> findOverlappingIntervals(@Param("userId") Long userId, @Param("start") Date start,
+                                                  @Param("end") Date end, @Param("excludeId") long excludeId);
+
+//    Блокировка проверки пересечений пользователя до конца транзакции
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:namespace, hashint8(:userId))", nativeQuery = true)
+    int lockUser(@Param("namespace") int namespace, @Param("userId") Long userId);
+
+//    Однонаправленный поток всех записей для выгрузки.
+//    Драйвер читает строки курсором порциями по fetch size, сущности не отслеживаются на изменения
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")})
+    @Query("select r from Record r order by r.startTime, r.id")
+    Stream<Record> streamAll();
 }
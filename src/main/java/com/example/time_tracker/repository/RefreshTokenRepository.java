@@ -0,0 +1,29 @@
+package com.example.time_tracker.repository;
+
+import com.example.time_tracker.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+//    Отзыв действующего токена, 0 если токен не найден, не совпал, просрочен или уже отозван
+    @Modifying
+    @Query("""
+            update RefreshToken t set t.revoked = true
+            where t.id = :id and t.userId = :userId and t.tokenHash = :tokenHash
+              and t.revoked = false and t.expiresAt > :now""")
+    int consume(@Param("id") Long id, @Param("userId") Long userId,
+                @Param("tokenHash") String tokenHash, @Param("now") Date now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revoked = true where t.userId = :userId and t.revoked = false")
+    int revokeAllByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :time")
+    int deleteAllExpiredBefore(@Param("time") Date time);
+}
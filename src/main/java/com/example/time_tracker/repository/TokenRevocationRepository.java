@@ -0,0 +1,30 @@
+package com.example.time_tracker.repository;
+
+import com.example.time_tracker.model.TokenRevocation;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+//    Отзыв токенов пользователя, выпущенных до revokedBefore, более ранний момент не перезаписывает поздний
+    @Modifying
+    @Query(value = """
+            INSERT INTO token_revocations (user_id, revoked_before)
+            VALUES (:userId, :revokedBefore)
+            ON CONFLICT (user_id) DO UPDATE
+            SET revoked_before = GREATEST(token_revocations.revoked_before, EXCLUDED.revoked_before)""",
+            nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "token_revocations"))
+    int upsert(@Param("userId") Long userId, @Param("revokedBefore") Date revokedBefore);
+
+    @Modifying
+    @Query("delete from TokenRevocation r where r.revokedBefore < :time")
+    int deleteAllRevokedBefore(@Param("time") Date time);
+}
@@ -1,11 +1,21 @@
 package com.example.time_tracker.repository;
 
 import com.example.time_tracker.model.User;
+import com.example.time_tracker.model.dto.UserDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -13,4 +23,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsById(@NonNull Long id);
+
+//    Удаление пользователя одним запросом без загрузки его коллекций.
+//    Hibernate при этом сбрасывает в кэше второго уровня пользователей и коллекции, в которых они участвуют,
+//    контекст персистентности очищается, чтобы в нем не осталось удаленного пользователя
+    @Modifying(clearAutomatically = true)
+    @Query("delete from User u where u.id = :id")
+    int deleteInBulkById(@Param("id") Long id);
+
+//    Существующие пользователи из списка id
+    @Query("select u.id from User u where u.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+//    Списки пользователей выбираются сразу в UserDto без хэша пароля, сущности для них не создаются
+    @Query("select new com.example.time_tracker.model.dto.UserDto(u.id, u.username, u.email, str(u.role), u.version) from User u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<UserDto> findAllDtos();
+
+//    Пользователи, назначенные на проект
+    @Query("select new com.example.time_tracker.model.dto.UserDto(u.id, u.username, u.email, str(u.role), u.version) "
+            + "from Project p join p.users u where p.id = :projectId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<UserDto> findAllByProjectId(@Param("projectId") Long projectId);
 }
@@ -0,0 +1,12 @@
+package com.example.time_tracker.repository.projection;
+
+import java.time.LocalDate;
+
+//    Строка агрегированного отчета, посчитанная на стороне базы
+public interface HoursAggregate {
+    Long getUserId();
+    Long getProjectId();
+    LocalDate getDay();
+    Long getTotalSeconds();
+    Long getRecordCount();
+}
@@ -0,0 +1,10 @@
+package com.example.time_tracker.repository.projection;
+
+import java.util.Date;
+
+//    Границы записи без остальных полей, используются для индекса пересечений
+public interface RecordInterval {
+    Long getId();
+    Date getStartTime();
+    Date getEndTime();
+}
@@ -0,0 +1,13 @@
+package com.example.time_tracker.repository.projection;
+
+import java.util.Date;
+
+//    Поля записи, отдаваемые в списках. Строки читаются сразу в проекцию без пользователя и проекта,
+//    сущности не создаются и не проверяются на изменения при сбросе контекста
+public interface RecordView {
+    Long getId();
+    String getDescription();
+    Date getStartTime();
+    Date getEndTime();
+    Long getVersion();
+}
@@ -0,0 +1,13 @@
+package com.example.time_tracker.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface ProjectMembershipService {
+    boolean isMember(Long userId, Long projectId);
+    boolean isMemberForUpdate(Long userId, Long projectId);
+    Set<Long> findAssignedForUpdate(Long userId, Collection<Long> projectIds);
+    void evict(Long userId);
+    void evictRelations(Collection<Long> userIds, Collection<Long> projectIds);
+    void evictAll();
+}
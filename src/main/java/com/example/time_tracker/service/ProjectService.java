@@ -10,6 +10,7 @@ public interface ProjectService {
     List<ProjectDto> findAllByUserId(Long id);
     ProjectDto create(ProjectDto projectDto);
     ProjectDto findById(Long id);
-    ProjectDto updateById(Long id, ProjectDto projectDto);
+    ProjectDto updateById(Long id, ProjectDto projectDto, Long version);
+    ProjectDto patchById(Long id, ProjectDto projectDto, Long version);
     void deleteById(Long id);
 }
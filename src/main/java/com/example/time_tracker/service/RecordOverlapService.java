@@ -0,0 +1,13 @@
+package com.example.time_tracker.service;
+
+import com.example.time_tracker.model.Record;
+import com.example.time_tracker.model.dto.RecordOverlapDto;
+
+import java.util.List;
+
+public interface RecordOverlapService {
+    void resolve(Record record);
+    void put(Record record);
+    void remove(Record record);
+    List<RecordOverlapDto> findOverlaps(Long userId);
+}
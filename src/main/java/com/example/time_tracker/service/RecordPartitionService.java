@@ -0,0 +1,10 @@
+package com.example.time_tracker.service;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface RecordPartitionService {
+    List<String> createAhead();
+    List<String> detachBefore(YearMonth month);
+    void maintain();
+}
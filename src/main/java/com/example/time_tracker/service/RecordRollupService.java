@@ -0,0 +1,14 @@
+package com.example.time_tracker.service;
+
+import com.example.time_tracker.model.Record;
+
+import java.util.Collection;
+
+public interface RecordRollupService {
+    void add(Record record);
+    void addAll(Collection<Record> records);
+    void subtract(Record record);
+    void detachUser(Long userId);
+    void detachProject(Long projectId);
+    int rebuild();
+}
@@ -1,17 +1,30 @@
 package com.example.time_tracker.service;
 
+import com.example.time_tracker.model.dto.RecordBatchItemDto;
+import com.example.time_tracker.model.dto.RecordBatchResultDto;
 import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.RecordOverlapDto;
+import com.example.time_tracker.model.dto.RecordPageDto;
+import com.example.time_tracker.util.export.ExportFormat;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface RecordService {
-    List<RecordDto> findAll();
-    List<RecordDto> findAllForCurrentUserByProjectId(Long id);
-    List<RecordDto> findAllGenerally();
-    List<RecordDto> findAllByUserId(Long id);
-    List<RecordDto> findAllByProjectId(Long id);
+    List<RecordDto> findAll(LocalDateTime from, LocalDateTime to);
+    List<RecordDto> findAllForCurrentUserByProjectId(Long id, LocalDateTime from, LocalDateTime to);
+    RecordPageDto findAllGenerally(LocalDateTime from, LocalDateTime to, String cursor, int size);
+    RecordPageDto findAllByUserId(Long id, LocalDateTime from, LocalDateTime to, String cursor, int size);
+    RecordPageDto findAllByProjectId(Long id, LocalDateTime from, LocalDateTime to, String cursor, int size);
+    List<RecordOverlapDto> findOverlapsForCurrentUser();
+    List<RecordOverlapDto> findOverlapsByUserId(Long id);
+    void exportAll(ExportFormat format, OutputStream out) throws IOException;
     RecordDto createByProjectId(Long id, RecordDto recordDto);
+    List<RecordBatchResultDto> createBatch(List<RecordBatchItemDto> items);
     RecordDto findById(Long id);
-    RecordDto updateById(Long id, RecordDto recordDto);
+    RecordDto updateById(Long id, RecordDto recordDto, Long version);
+    RecordDto patchById(Long id, RecordDto recordDto, Long version);
     void deleteById(Long id);
 }
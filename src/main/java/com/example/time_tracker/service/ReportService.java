@@ -0,0 +1,11 @@
+package com.example.time_tracker.service;
+
+import com.example.time_tracker.model.dto.HoursReportDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ReportService {
+    List<HoursReportDto> findHours(List<String> groupBy, LocalDate from, LocalDate to);
+    int rebuildRollup();
+}
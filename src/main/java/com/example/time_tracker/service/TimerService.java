@@ -0,0 +1,15 @@
+package com.example.time_tracker.service;
+
+import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.TimerDto;
+
+import java.util.Optional;
+
+public interface TimerService {
+    TimerDto start(TimerDto timerDto);
+    RecordDto stop();
+    Optional<TimerDto> current();
+    void evict(Long userId);
+    void evictByProjectId(Long projectId);
+    void refresh();
+}
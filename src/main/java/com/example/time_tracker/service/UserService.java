@@ -4,14 +4,18 @@ import com.example.time_tracker.model.auth.RegistrationRequest;
 import com.example.time_tracker.model.dto.UserDto;
 
 import java.util.List;
+import java.util.Set;
 
 public interface UserService {
     List<UserDto> findAll();
     UserDto findCurrentUser();
     UserDto findById(Long id);
     List<UserDto> findAllByProjectId(Long id);
-    UserDto updateById(Long id, RegistrationRequest request);
+    UserDto updateById(Long id, RegistrationRequest request, Long version);
+    UserDto patchById(Long id, RegistrationRequest request, Long version);
     void deleteById(Long id);
     void createUserProjectRelation(Long userId, Long projectId);
     void deleteUserProjectRelation(Long userId, Long projectId);
+    void createUserProjectRelations(Set<Long> userIds, Set<Long> projectIds);
+    void deleteUserProjectRelations(Set<Long> userIds, Set<Long> projectIds);
 }
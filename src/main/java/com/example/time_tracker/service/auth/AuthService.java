@@ -1,6 +1,7 @@
 package com.example.time_tracker.service.auth;
 
 import com.example.time_tracker.model.auth.AuthRequest;
+import com.example.time_tracker.model.auth.RefreshRequest;
 import com.example.time_tracker.model.auth.RegistrationRequest;
 import com.example.time_tracker.model.User;
 import com.example.time_tracker.model.dto.UserDto;
@@ -9,12 +10,20 @@ import com.example.time_tracker.model.auth.AuthResponse;
 import com.example.time_tracker.util.convertor.RequestMapper;
 import com.example.time_tracker.util.convertor.UserMapper;
 import com.example.time_tracker.util.exception.EmailAlreadyExistException;
+import com.example.time_tracker.util.exception.InvalidTokenException;
+import com.example.time_tracker.util.exception.TooManyRequestsException;
 import com.example.time_tracker.util.exception.UsernameAlreadyExistException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
@@ -28,13 +37,17 @@ public class AuthService {
     private final PasswordEncoder encoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final LoginDetailsService loginDetailsService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginThrottle loginThrottle;
+    private final MeterRegistry meterRegistry;
 
     /*
     Сохранение нового пользователя
     Перед этим происходят проверки на уникальность имени и почты
     Если проверки провалены выбрасывается соответствующее исключение
     Далее происходит шифровка пароля, и зашифрованный пароль назначается пользователю,
-    который после сохраняется
+    который после сохраняется, имя пользователя удаляется из кэша аутентификации
      */
     @Transactional
     public UserDto create(RegistrationRequest request) {
@@ -48,13 +61,69 @@ public class AuthService {
 
         User user = requestMapper.requestToModel(request);
         user.setPassword(encoder.encode(request.getPassword()));
+        loginDetailsService.evict(user.getUsername());
 
         return userMapper.modelToDto(userRepository.save(user));
     }
 
-//    Метод проверяет имя пользователя и пароль, и если все в порядке в ответ генерирует токен
-    public AuthResponse authenticateAndGetToken(AuthRequest request) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
-        return new AuthResponse(jwtService.generateToken(request.getUsername()));
+    /*
+    Метод проверяет имя пользователя и пароль, и если все в порядке в ответ генерирует токен доступа и токен обновления
+    Перед проверкой пароля учитывается попытка входа по IP клиента и по паре имя и IP,
+    при превышении лимита, до конца задержки после неудачных попыток или переполнении пула
+    проверки паролей выбрасывается TooManyRequestsException. Неверный пароль увеличивает задержку пары,
+    успешный вход сбрасывает ее.
+    Каждый отказ учитывается в счетчике time_tracker.auth.login.failures с причиной в теге reason.
+    Метод выполняется вне транзакции: пользователь загружается своей короткой транзакцией,
+    пароль проверяется без занятого соединения с базой, а токен обновления сохраняется отдельной транзакцией
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AuthResponse authenticateAndGetToken(AuthRequest request, String clientIp) {
+        try {
+            loginThrottle.acquire(request.getUsername(), clientIp);
+        } catch (TooManyRequestsException e) {
+            countLoginFailure("throttled");
+            throw e;
+        }
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
+        } catch (InternalAuthenticationServiceException e) {
+//            Для неизвестного имени пароль тоже проверяется, и отказ пула приходит обернутым
+            if (e.getCause() instanceof TooManyRequestsException cause) {
+                countLoginFailure("throttled");
+                throw cause;
+            }
+            countLoginFailure("error");
+            throw e;
+        } catch (BadCredentialsException e) {
+            loginThrottle.failed(request.getUsername(), clientIp);
+            countLoginFailure("bad_credentials");
+            throw e;
+        } catch (AuthenticationException e) {
+            countLoginFailure("error");
+            throw e;
+        }
+        loginThrottle.succeeded(request.getUsername(), clientIp);
+        LoginDetails details = (LoginDetails) authentication.getPrincipal();
+        return new AuthResponse(jwtService.generateToken(details),
+                refreshTokenService.issue(details.getUser().getId()));
+    }
+
+    /*
+    Выдача новой пары токенов по токену обновления без проверки пароля.
+    Предъявленный токен обновления отзывается, роль и имя для токена доступа берутся из базы,
+    если токен неверный или пользователь удален выбрасывается исключение
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public AuthResponse refresh(RefreshRequest request) {
+        Long userId = refreshTokenService.rotate(request.getRefreshToken());
+        User user = userRepository.findById(userId).orElseThrow(
+                () -> new InvalidTokenException("Refresh token is invalid or expired"));
+        return new AuthResponse(jwtService.generateToken(new LoginDetails(user)), refreshTokenService.issue(userId));
+    }
+
+    private void countLoginFailure(String reason) {
+        meterRegistry.counter("time_tracker.auth.login.failures", "reason", reason).increment();
     }
 }
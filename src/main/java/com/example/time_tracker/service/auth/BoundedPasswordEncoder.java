@@ -0,0 +1,70 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.util.exception.TooManyRequestsException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+Проверка паролей при входе на отдельном ограниченном пуле потоков.
+BCrypt нагружает процессор, поэтому всплеск входов не должен занимать все ядра
+и потоки Tomcat, обслуживающие остальные запросы. Пул имеет фиксированное число потоков
+и ограниченную очередь, при переполнении очереди сразу выбрасывается TooManyRequestsException.
+Ограничивается только matches, который вызывается при входе. encode выполняется в потоке запроса:
+регистрация и смена пароля администратором редки и не должны ждать в очереди за потоком входов
+или получать 429 из-за чужих попыток входа.
+Пул не регистрируется как бин, чтобы не заменить собой общий пул задач приложения.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-encoder-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+//    Вызывается контейнером при остановке приложения
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T call(Callable<T> task) {
+        try {
+            return executor.submit(task).get();
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many sign-in attempts, try again later", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.model.User;
+import com.example.time_tracker.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+/*
+Текущий аутентифицированный пользователь.
+JwtAuthFilter один раз за запрос кладет в контекст LoginDetails с id и ролью пользователя,
+поэтому сервисы получают id отсюда и обращаются к базе по user_id, а не ищут пользователя по имени.
+Поиск по имени остается только для аутентификации, выполненной без LoginDetails.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUser {
+
+    private final UserRepository userRepository;
+
+//    Id текущего пользователя
+    public Long getId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof LoginDetails details)
+            return details.getUser().getId();
+        return userRepository.findByUsername(authentication.getName()).map(User::getId).orElseThrow(
+                () -> new UsernameNotFoundException("Authenticated user not found"));
+    }
+}
@@ -1,82 +1,66 @@
 package com.example.time_tracker.service.auth;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.List;
 
+/*
+Выпуск и проверка токенов.
+Ключ подписи и парсер неизменяемы и потокобезопасны,
+поэтому создаются один раз при старте, а не на каждый запрос.
+ */
 @Service
 public class JwtService {
 
-    @Value("${token.signing.key}")
-    private String jwtSigningKey;
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final long TOKEN_LIFETIME = 1000 * 60 * 30;
 
-//    Генерация токена
-    public String generateToken(String username) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, username);
-    }
-
-//    Токен валиден в течении 30 минут
-    private String createToken(Map<String, Object> claims, String username) {
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 30))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256).compact();
-    }
-
-//    Получение ключа для подписи токена
-    private Key getSignKey() {
-        byte[] keyBytes= Decoders.BASE64.decode(jwtSigningKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    private final Key signKey;
+    private final JwtParser parser;
 
-//    Извлечение имени пользователя из токена
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public JwtService(@Value("${token.signing.key}") String jwtSigningKey) {
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSigningKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(signKey).build();
     }
 
-//    Извлечение даты истечения токена
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-//    Извлечение данных из токена
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-//    Извлечение всех данных из токена
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+//    Генерация токена с id и ролями пользователя, токен валиден в течении 30 минут
+    public String generateToken(UserDetails userDetails) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(userDetails.getUsername())
+                .claim(USER_ID_CLAIM, userDetails instanceof LoginDetails details ? details.getUser().getId() : null)
+                .claim(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TOKEN_LIFETIME))
+                .signWith(signKey, SignatureAlgorithm.HS256).compact();
     }
 
-//    Проверка токена на просроченность
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /*
+    Проверка токена за один разбор: подпись и срок действия проверяет парсер,
+    при неверном или просроченном токене выбрасывается исключение JwtException.
+     */
+    public TokenClaims verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        return new TokenClaims(claims.getSubject(), userId == null ? null : userId.longValue(),
+                claims.getIssuedAt(), claims.getExpiration(), roles(claims));
     }
 
-//    Проверка токена на валидность
-    public Boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    @SuppressWarnings("unchecked")
+    private static List<String> roles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        return roles instanceof List<?> list ? (List<String>) list : List.of();
     }
 }
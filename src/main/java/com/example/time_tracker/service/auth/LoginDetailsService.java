@@ -1,23 +1,69 @@
 package com.example.time_tracker.service.auth;
 
+import com.example.time_tracker.model.User;
 import com.example.time_tracker.repository.UserRepository;
+import com.example.time_tracker.util.datasource.PrimaryReads;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/*
+Загрузка пользователя для аутентификации.
+Пользователи кэшируются по имени в ограниченном кэше с временем жизни записи,
+настройки кэша задаются свойством spring.cache.caffeine.spec.
+Кэшируется копия пользователя без связанных коллекций: объект переживает сессию,
+в которой был загружен, и ленивые коллекции из него прочитать уже нельзя.
+Пользователь читается с основной базы: отставшая реплика закэшировала бы старый пароль или роль
+на все время жизни записи кэша.
+ */
 @Service
 @RequiredArgsConstructor
-@Transactional(readOnly = true)
 public class LoginDetailsService implements UserDetailsService {
 
+    public static final String CACHE = "loginDetails";
+
     private final UserRepository userRepository;
+    private final PrimaryReads primaryReads;
+    private final CacheManager cacheManager;
 
     @Override
+    @Cacheable(cacheNames = CACHE)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return new LoginDetails(userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+        User user = primaryReads.read(() -> userRepository.findByUsername(username))
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return new LoginDetails(User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .password(user.getPassword())
+                .email(user.getEmail())
+                .role(user.getRole())
+                .build());
+    }
+
+    /*
+    Удаление пользователя из кэша при его изменении.
+    Внутри транзакции запись удаляется еще раз после ее завершения,
+    иначе параллельный запрос может успеть закэшировать старые данные до фиксации изменений.
+     */
+    public void evict(String username) {
+        Cache cache = cacheManager.getCache(CACHE);
+        if (cache == null)
+            return;
+        cache.evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(username);
+                }
+            });
+        }
     }
 }
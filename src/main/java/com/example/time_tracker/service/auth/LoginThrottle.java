@@ -0,0 +1,95 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.util.exception.TooManyRequestsException;
+import com.example.time_tracker.util.ratelimit.TokenBucketLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+Ограничение попыток входа по IP клиента и по паре имя пользователя и IP.
+Лимит по IP защищает от перебора многих учетных записей с одного адреса.
+Неудачные попытки входа учитываются точно для каждой пары имя и IP: после нескольких
+бесплатных попыток следующая разрешается только через задержку, которая удваивается
+с каждой неудачей до максимальной. Учетная запись не блокируется целиком, поэтому
+подбор пароля с чужого адреса не мешает владельцу войти со своего.
+Успешный вход сбрасывает счетчик пары, пары без неудач дольше максимальной задержки забываются.
+IP клиента берется из запроса после обработки заголовков X-Forwarded-* доверенного прокси
+(server.forward-headers-strategy).
+Проверка выполняется до проверки пароля, поэтому отклоненная попытка не тратит BCrypt.
+ */
+@Component
+public class LoginThrottle {
+
+    private static final int STRIPES = 4096;
+    private static final long REFILL_PERIOD = TimeUnit.MINUTES.toNanos(1);
+
+    private final TokenBucketLimiter byClientIp;
+    private final ConcurrentMap<Key, Failures> failures = new ConcurrentHashMap<>();
+    private final int freeAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final LongSupplier clock;
+
+    public LoginThrottle(int ipLimit, int freeAttempts, long baseDelay, long maxDelay, LongSupplier clock) {
+        this.byClientIp = new TokenBucketLimiter(STRIPES, ipLimit, REFILL_PERIOD);
+        this.freeAttempts = freeAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.clock = clock;
+    }
+
+//    Задержки указываются в миллисекундах
+    @Autowired
+    public LoginThrottle(@Value("${time-tracker.login.ip-limit:60}") int ipLimit,
+                         @Value("${time-tracker.login.free-attempts:5}") int freeAttempts,
+                         @Value("${time-tracker.login.backoff-base:1000}") long baseDelay,
+                         @Value("${time-tracker.login.backoff-max:900000}") long maxDelay) {
+        this(ipLimit, freeAttempts, baseDelay, maxDelay, System::currentTimeMillis);
+    }
+
+//    Учет попытки входа, при превышении лимита IP или до конца задержки пары выбрасывается исключение
+    public void acquire(String username, String clientIp) {
+        Failures current = failures.get(new Key(username, clientIp));
+        if (current != null && clock.getAsLong() < current.retryAt())
+            throw new TooManyRequestsException("Too many sign-in attempts, try again later");
+        if (!byClientIp.tryAcquire(clientIp))
+            throw new TooManyRequestsException("Too many sign-in attempts, try again later");
+    }
+
+//    Неудачная попытка входа увеличивает задержку следующей попытки пары
+    public void failed(String username, String clientIp) {
+        long now = clock.getAsLong();
+        failures.compute(new Key(username, clientIp), (key, current) -> {
+            int count = current == null ? 1 : current.count() + 1;
+            if (count <= freeAttempts)
+                return new Failures(count, now, now);
+            int doublings = Math.min(count - freeAttempts - 1, 30);
+            return new Failures(count, now, now + Math.min(maxDelay, baseDelay << doublings));
+        });
+    }
+
+//    Успешный вход сбрасывает счетчик неудач пары
+    public void succeeded(String username, String clientIp) {
+        failures.remove(new Key(username, clientIp));
+    }
+
+//    Удаление пар, у которых не было неудач дольше максимальной задержки
+    @Scheduled(fixedDelayString = "${time-tracker.login.backoff-max:900000}")
+    public void cleanup() {
+        long expired = clock.getAsLong() - maxDelay;
+        failures.values().removeIf(current -> current.lastFailureAt() < expired);
+    }
+
+    private record Key(String username, String clientIp) {
+    }
+
+    private record Failures(int count, long lastFailureAt, long retryAt) {
+    }
+}
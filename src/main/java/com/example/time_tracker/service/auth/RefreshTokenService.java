@@ -0,0 +1,117 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.model.RefreshToken;
+import com.example.time_tracker.repository.RefreshTokenRepository;
+import com.example.time_tracker.util.exception.InvalidTokenException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+
+/*
+Токены обновления, по которым выдается новый токен доступа без проверки пароля.
+Токен имеет вид "<id>.<id пользователя>.<секрет>", в базе хранится только SHA-256 секрета,
+поэтому содержимое таблицы не позволяет получить действующий токен.
+При каждом обновлении предъявленный токен отзывается и выпускается новый.
+Повторное предъявление отозванного токена означает, что токен скопирован,
+поэтому в этом случае отзываются все токены пользователя.
+Действующий токен проверяется и отзывается одним условным UPDATE, поэтому состояние
+в памяти не нужно и все экземпляры приложения видят отзыв сразу. Отзыв проверяется
+отдельным запросом только если UPDATE не изменил строку.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    public static final long TOKEN_LIFETIME = 1000L * 60 * 60 * 24 * 14;
+    private static final int SECRET_LENGTH = 32;
+
+    private final RefreshTokenRepository tokenRepository;
+    private final SecureRandom random = new SecureRandom();
+
+//    Выпуск нового токена обновления для пользователя
+    @Transactional
+    public String issue(Long userId) {
+        byte[] bytes = new byte[SECRET_LENGTH];
+        random.nextBytes(bytes);
+        String secret = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        RefreshToken token = tokenRepository.save(RefreshToken.builder()
+                .userId(userId)
+                .tokenHash(hash(secret))
+                .expiresAt(new Date(System.currentTimeMillis() + TOKEN_LIFETIME))
+                .build());
+        return token.getId() + "." + userId + "." + secret;
+    }
+
+    /*
+    Проверка и отзыв предъявленного токена, возвращает id пользователя.
+    Если токен неверный, просрочен или уже отозван, выбрасывается исключение InvalidTokenException,
+    при этом отзыв всех токенов пользователя при повторном предъявлении сохраняется в базе.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public Long rotate(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3)
+            throw new InvalidTokenException("Refresh token is malformed");
+        long id;
+        long userId;
+        try {
+            id = Long.parseLong(parts[0]);
+            userId = Long.parseLong(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new InvalidTokenException("Refresh token is malformed", e);
+        }
+        String tokenHash = hash(parts[2]);
+
+        if (tokenRepository.consume(id, userId, tokenHash, new Date()) == 0) {
+            if (isRevoked(id, userId, tokenHash))
+                throw reused(userId);
+            throw new InvalidTokenException("Refresh token is invalid or expired");
+        }
+        return userId;
+    }
+
+//    Отзыв всех токенов обновления пользователя
+    @Transactional
+    public void revokeAll(Long userId) {
+        tokenRepository.revokeAllByUserId(userId);
+    }
+
+//    Удаление просроченных токенов
+    @Transactional
+    @Scheduled(fixedDelayString = "${token.refresh.cleanup-interval:3600000}",
+            initialDelayString = "${token.refresh.cleanup-interval:3600000}")
+    public void cleanup() {
+        tokenRepository.deleteAllExpiredBefore(new Date());
+    }
+
+//    Проверка по базе, что токен существует, совпадает и отозван
+    private boolean isRevoked(long id, long userId, String tokenHash) {
+        return tokenRepository.findById(id)
+                .filter(token -> token.getUserId() == userId && token.getTokenHash().equals(tokenHash))
+                .map(RefreshToken::isRevoked)
+                .orElse(false);
+    }
+
+    private InvalidTokenException reused(Long userId) {
+        revokeAll(userId);
+        return new InvalidTokenException("Refresh token has been revoked");
+    }
+
+    private static String hash(String secret) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.time_tracker.service.auth;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+//    Данные проверенного токена: подпись и срок действия уже проверены
+@Getter
+@RequiredArgsConstructor
+public class TokenClaims {
+
+    private final String subject;
+    private final Long userId;
+    private final Date issuedAt;
+    private final Date expiration;
+    private final List<String> roles;
+}
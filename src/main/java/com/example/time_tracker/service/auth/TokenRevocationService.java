@@ -0,0 +1,89 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.model.TokenRevocation;
+import com.example.time_tracker.repository.TokenRevocationRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+Отзыв токенов удаленных и измененных пользователей.
+Для пользователя хранится момент, токены выпущенные не позже которого недействительны.
+Проверка выполняется по карте в памяти без обращения к базе. Отзывы сохраняются
+в таблицу token_revocations и периодически перечитываются, чтобы отзыв на одном
+экземпляре приложения доходил до остальных. На экземпляре, выполнившем отзыв, токены
+перестают приниматься сразу после фиксации транзакции, а на остальных - только после
+следующей перезагрузки, то есть с задержкой до token.revocations.refresh-interval
+(30 секунд по умолчанию). Записи старше срока жизни токена
+не нужны: все токены, выпущенные до них, уже просрочены, поэтому они удаляются.
+ */
+@Service
+public class TokenRevocationService {
+
+    private final TokenRevocationRepository revocationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+//    Момент отзыва по id пользователя, в секундах, как и время выпуска токена
+    private final ConcurrentMap<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocationService(TokenRevocationRepository revocationRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.revocationRepository = revocationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /*
+    Отзыв всех выпущенных до текущего момента токенов пользователя.
+    Карта в памяти меняется только после фиксации транзакции, поэтому
+    откаченное изменение пользователя не отзывает его токены
+     */
+    @Transactional
+    public void revoke(Long userId) {
+        long now = System.currentTimeMillis() / 1000;
+        revocationRepository.upsert(userId, new Date(now * 1000));
+        Runnable apply = () -> revokedBefore.merge(userId, now, Math::max);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    /*
+    Токен отозван, если выпущен не позже момента отзыва его пользователя.
+    Время выпуска хранится с точностью до секунды, поэтому токен, выпущенный
+    в ту же секунду что и отзыв, тоже считается отозванным.
+    Токены без id пользователя проверяются по базе при загрузке пользователя.
+     */
+    public boolean isRevoked(TokenClaims claims) {
+        if (claims.getUserId() == null)
+            return false;
+        Long revoked = revokedBefore.get(claims.getUserId());
+        return revoked != null && (claims.getIssuedAt() == null || claims.getIssuedAt().getTime() / 1000 <= revoked);
+    }
+
+//    Удаление устаревших отзывов и загрузка отзывов, сделанных другими экземплярами приложения
+    @Scheduled(fixedDelayString = "${token.revocations.refresh-interval:30000}")
+    public void refresh() {
+        long expired = (System.currentTimeMillis() - JwtService.TOKEN_LIFETIME) / 1000;
+        transactionTemplate.executeWithoutResult(status -> {
+            revocationRepository.deleteAllRevokedBefore(new Date(expired * 1000));
+            for (TokenRevocation revocation : revocationRepository.findAll())
+                revokedBefore.merge(revocation.getUserId(), revocation.getRevokedBefore().getTime() / 1000, Math::max);
+        });
+        revokedBefore.values().removeIf(revoked -> revoked < expired);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.Project;
+import com.example.time_tracker.model.User;
+import com.example.time_tracker.repository.ProjectRepository;
+import com.example.time_tracker.service.ProjectMembershipService;
+import com.example.time_tracker.util.datasource.PrimaryReads;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+Проверка того, что проект назначен пользователю, без загрузки списка его проектов.
+Для каждого пользователя в кэше projectMemberships держится отсортированный массив id
+назначенных ему проектов, проверка - двоичный поиск по нему. Размер и время жизни записей
+кэша задаются свойством time-tracker.memberships.cache-spec.
+Массив загружается из user_project по первичному ключу при первом обращении, всегда с основной базы,
+чтобы в кэш не попали отстающие назначения реплики.
+Кэш сбрасывается только на экземпляре, изменившем назначения, на остальных он отстает
+не дольше времени жизни записи. Поэтому кэш используется только для чтения, а изменяющие операции
+проверяют назначение запросом к основной базе через isMemberForUpdate.
+id проектов упорядочены по времени и не плотные, поэтому битовая карта по id не подходит,
+а массив long занимает 8 байт на проект и не создает объектов на каждый id.
+При изменении назначений массив пользователя сбрасывается сразу и еще раз после завершения транзакции,
+иначе параллельный запрос может успеть закэшировать назначения до фиксации изменений.
+Назначения, измененные запросами напрямую к user_project, не сбрасывают коллекции
+User.projects и Project.users в кэше второго уровня: Hibernate сбрасывает коллекции только
+вместе с сущностями, чьи таблицы затронуты, а у user_project сущности нет.
+Поэтому такие коллекции сбрасываются здесь же для каждого затронутого пользователя и проекта.
+ */
+@Service
+public class ProjectMembershipServiceImpl implements ProjectMembershipService {
+
+    public static final String CACHE = "projectMemberships";
+
+    private static final String USER_PROJECTS = User.class.getName() + ".projects";
+    private static final String PROJECT_USERS = Project.class.getName() + ".users";
+
+    private final ProjectRepository projectRepository;
+    private final PrimaryReads primaryReads;
+    private final Cache cache;
+    private final org.hibernate.Cache entityCache;
+
+    public ProjectMembershipServiceImpl(ProjectRepository projectRepository, PrimaryReads primaryReads,
+                                        CacheManager cacheManager, EntityManagerFactory entityManagerFactory) {
+        this.projectRepository = projectRepository;
+        this.primaryReads = primaryReads;
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE), "Cache " + CACHE + " is not configured");
+        this.entityCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @Override
+    public boolean isMember(Long userId, Long projectId) {
+        if (userId == null || projectId == null)
+            return false;
+        long[] projectIds = cache.get(userId, () -> load(userId));
+        return Arrays.binarySearch(Objects.requireNonNull(projectIds), projectId) >= 0;
+    }
+
+//    Проверка назначения по основной базе без кэша для изменяющих операций
+    @Override
+    public boolean isMemberForUpdate(Long userId, Long projectId) {
+        if (userId == null || projectId == null)
+            return false;
+        return primaryReads.read(() -> projectRepository.existsMembership(userId, projectId));
+    }
+
+//    Назначенные пользователю проекты из списка, одним запросом к основной базе без кэша для изменяющих операций
+    @Override
+    public Set<Long> findAssignedForUpdate(Long userId, Collection<Long> projectIds) {
+        if (userId == null || projectIds.isEmpty())
+            return Set.of();
+        return Set.copyOf(primaryReads.read(() -> projectRepository.findIdsByUserIdAndIdIn(userId, projectIds)));
+    }
+
+//    Сброс назначений пользователя при их изменении
+    @Override
+    public void evict(Long userId) {
+        cache.evict(userId);
+        afterCompletion(() -> cache.evict(userId));
+    }
+
+//    Сброс назначений и коллекций второго уровня после изменения user_project в обход коллекций
+    @Override
+    public void evictRelations(Collection<Long> userIds, Collection<Long> projectIds) {
+        Runnable eviction = () -> {
+            userIds.forEach(userId -> {
+                cache.evict(userId);
+                entityCache.evictCollectionData(USER_PROJECTS, userId);
+            });
+            projectIds.forEach(projectId -> entityCache.evictCollectionData(PROJECT_USERS, projectId));
+        };
+        eviction.run();
+        afterCompletion(eviction);
+    }
+
+//    Сброс назначений всех пользователей, например при удалении проекта
+    @Override
+    public void evictAll() {
+        cache.clear();
+        afterCompletion(cache::clear);
+    }
+
+    private long[] load(Long userId) {
+        long[] projectIds = primaryReads.read(() -> projectRepository.findIdsByUserId(userId))
+                .stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(projectIds);
+        return projectIds;
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,18 +1,24 @@
 package com.example.time_tracker.service.impl;
 
 import com.example.time_tracker.model.Project;
-import com.example.time_tracker.model.User;
 import com.example.time_tracker.model.dto.ProjectDto;
 import com.example.time_tracker.repository.ProjectRepository;
+import com.example.time_tracker.repository.RecordRepository;
 import com.example.time_tracker.repository.UserRepository;
+import com.example.time_tracker.service.ProjectMembershipService;
+import com.example.time_tracker.service.RecordRollupService;
 import com.example.time_tracker.service.ProjectService;
+import com.example.time_tracker.service.TimerService;
+import com.example.time_tracker.service.auth.CurrentUser;
 import com.example.time_tracker.util.convertor.ProjectMapper;
+import com.example.time_tracker.util.ETags;
+import com.example.time_tracker.util.datasource.PrimaryReads;
 import com.example.time_tracker.util.exception.ModelNotFoundException;
 import com.example.time_tracker.util.exception.ProjectNameAlreadyExistException;
+import com.example.time_tracker.util.validation.PatchValidator;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,42 +27,50 @@ import java.util.List;
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Timed("time_tracker.service")
 public class ProjectServiceImpl implements ProjectService {
 
     private final ProjectRepository projectRepository;
+    private final RecordRepository recordRepository;
     private final UserRepository userRepository;
     private final ProjectMapper projectMapper;
+    private final RecordRollupService rollupService;
+    private final CurrentUser currentUser;
+    private final ProjectMembershipService membershipService;
+    private final PatchValidator patchValidator;
+    private final TimerService timerService;
+    private final PrimaryReads primaryReads;
 
 //    Метод возвращает список проектов
     @Override
     public List<ProjectDto> findAll() {
-        return projectMapper.toListDto(projectRepository.findAll());
+        return projectRepository.findAllDtos();
     }
 
 //    Метод возвращает список всех проектов назначенных текущему пользователю
     @Override
     @PreAuthorize("hasRole('ROLE_USER')")
     public List<ProjectDto> findAllByCurrentUser() {
-        User user = userRepository.findByUsername(
-                SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(
-                () -> new UsernameNotFoundException("Authenticated user not found"));
-        return projectMapper.toListDto(user.getProjects());
+        return projectRepository.findAllByUserId(currentUser.getId());
     }
 
 //    Метод возвращает список проектов назначенных пользователю с id
-//    Если такого пользователя не найлено выбрасывается исключение
+//    Если такого пользователя не найлено выбрасывается исключение,
+//    существование пользователя проверяется только когда список пуст
     @Override
     public List<ProjectDto> findAllByUserId(Long id) {
-        return projectMapper.toListDto(userRepository.findById(id).orElseThrow(
-                () -> new ModelNotFoundException("User with id: " + id + " not found")).getProjects());
+        List<ProjectDto> projects = projectRepository.findAllByUserId(id);
+        if (projects.isEmpty() && !userRepository.existsById(id))
+            throw new ModelNotFoundException("User with id: " + id + " not found");
+        return projects;
     }
 
 //    Метод возвращает проект по его id
     @Override
     public ProjectDto findById(Long id) {
-        return projectMapper.modelToDto(
+        return primaryReads.read(() -> projectMapper.modelToDto(
                 projectRepository.findById(id).orElseThrow(
-                        () -> new ModelNotFoundException("Project with id: " + id + " not found")));
+                        () -> new ModelNotFoundException("Project with id: " + id + " not found"))));
     }
 
 //    Метод сохраняет новый проект в базу
@@ -72,28 +86,57 @@ public class ProjectServiceImpl implements ProjectService {
                 projectMapper.dtoToModel(projectDto)));
     }
 
-//    Метод обновляет проект, если id указан неверно выбрасывается исключение
+    /*
+    Метод обновляет проект, если id указан неверно выбрасывается исключение.
+    Проект загружается, новые значения переносятся в него, и Hibernate сохраняет изменения
+    одним UPDATE с проверкой версии. Если version передана и не совпадает с текущей,
+    выбрасывается PreconditionFailedException. Изменения сбрасываются в базу до возврата,
+    чтобы ответ содержал уже увеличенную версию
+     */
     @Override
     @Transactional
-    public ProjectDto updateById(Long id, ProjectDto projectDto) {
-        if (projectRepository.existsById(id)) {
-            Project project = projectMapper.dtoToModel(projectDto);
-            project.setId(id);
-            return projectMapper.modelToDto(projectRepository.save(project));
-        } else {
-            throw new ModelNotFoundException("Project with id: " + id + " not found");
-        }
+    public ProjectDto updateById(Long id, ProjectDto projectDto, Long version) {
+        Project project = getProjectForUpdate(id, version);
+        projectMapper.updateModel(projectDto, project);
+        projectRepository.flush();
+        return projectMapper.modelToDto(project);
     }
 
-//    Метод удаляет проект из базы, а так же у пользователей которым он назначен,
-//    если id указан неверно выбрасывается исключение
+//    Метод меняет только переданные поля проекта (null означает "не менять"), в остальном так же, как updateById
+    @Override
+    @Transactional
+    public ProjectDto patchById(Long id, ProjectDto projectDto, Long version) {
+        patchValidator.validate(projectDto);
+        Project project = getProjectForUpdate(id, version);
+        projectMapper.patchModel(projectDto, project);
+        projectRepository.flush();
+        return projectMapper.modelToDto(project);
+    }
+
+    /*
+    Метод удаляет проект из базы, а так же у пользователей которым он назначен,
+    записи проекта остаются без проекта, время проекта в дневной свертке переносится в строки без проекта,
+    запущенные по проекту таймеры сбрасываются, если id указан неверно выбрасывается исключение.
+    Назначения, записи и сам проект меняются отдельными запросами без загрузки коллекций,
+    поэтому число запросов не зависит от числа участников и записей проекта
+     */
     @Override
     @Transactional
     public void deleteById(Long id) {
+        if (!projectRepository.existsById(id))
+            throw new ModelNotFoundException("Project with id: " + id + " not found");
+        projectRepository.deleteMembershipsByProjectId(id);
+        recordRepository.detachProject(id);
+        rollupService.detachProject(id);
+        projectRepository.deleteInBulkById(id);
+        membershipService.evictAll();
+        timerService.evictByProjectId(id);
+    }
+
+    private Project getProjectForUpdate(Long id, Long version) {
         Project project = projectRepository.findById(id).orElseThrow(
                 () -> new ModelNotFoundException("Project with id: " + id + " not found"));
-        List<User> users = project.getUsers();
-        users.forEach((u -> u.getProjects().remove(project)));
-        projectRepository.delete(project);
+        ETags.checkVersion(version, project.getVersion());
+        return project;
     }
 }
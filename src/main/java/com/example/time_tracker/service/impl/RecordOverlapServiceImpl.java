@@ -0,0 +1,196 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.Record;
+import com.example.time_tracker.model.dto.RecordOverlapDto;
+import com.example.time_tracker.repository.RecordRepository;
+import com.example.time_tracker.repository.projection.RecordInterval;
+import com.example.time_tracker.service.RecordOverlapService;
+import com.example.time_tracker.util.exception.RecordOverlapException;
+import com.example.time_tracker.util.overlap.IntervalIndex;
+import com.example.time_tracker.util.overlap.OverlapPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*
+Проверка пересечений записей одного пользователя.
+Источник истины - база: пересекающиеся записи ищутся запросом по GiST индексу
+(user_id, tsrange(start_time, end_time)). Перед первой проверкой в транзакции берется
+advisory блокировка пользователя до конца транзакции, поэтому параллельные запросы
+одного пользователя проверяют и сохраняют записи по очереди и не могут оба пройти проверку.
+Записи, сохраненные или удаленные в текущей транзакции, но еще не записанные в базу,
+держатся в индексе интервалов транзакции, поэтому записи одной пачки проверяются и друг с другом.
+Проверки выполняются в пишущих транзакциях, то есть на основной базе, а не на реплике.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecordOverlapServiceImpl implements RecordOverlapService {
+
+//    Пространство advisory блокировок проверки пересечений, второй ключ - хэш id пользователя
+    private static final int LOCK_NAMESPACE = 9001;
+
+    private final RecordRepository recordRepository;
+
+    @Value("${time-tracker.records.overlap-policy:reject}")
+    private OverlapPolicy policy;
+
+    /*
+    Проверка записи перед сохранением по настроенной политике.
+    При политике TRIM начало записи сдвигается на конец записей, начавшихся раньше нее,
+    а конец - на начало первой записи, начавшейся позже. Если от записи ничего не осталось,
+    она отклоняется так же, как при политике REJECT.
+     */
+    @Override
+    public void resolve(Record record) {
+        if (record.getUser() == null)
+            return;
+        Long userId = record.getUser().getId();
+        long start = record.getStartTime().getTime();
+        long end = record.getEndTime().getTime();
+        List<IntervalIndex.Interval> overlapping = overlapping(userId, start, end, record.getId());
+        if (overlapping.isEmpty())
+            return;
+        switch (policy) {
+            case REJECT -> throw overlapException(overlapping);
+            case WARN -> log.warn("Record {} of user {} overlaps records {}", record.getId(), userId, ids(overlapping));
+            case TRIM -> trim(record, overlapping, start, end);
+        }
+    }
+
+//    Учет сохраненной записи до ее записи в базу
+    @Override
+    public void put(Record record) {
+        if (record.getUser() == null)
+            return;
+        PendingChanges pending = pendingChanges();
+        if (pending != null)
+            pending.intervals(record.getUser().getId()).put(toInterval(record));
+    }
+
+//    Учет удаленной записи до ее удаления из базы
+    @Override
+    public void remove(Record record) {
+        if (record.getUser() == null)
+            return;
+        PendingChanges pending = pendingChanges();
+        if (pending != null) {
+            pending.intervals(record.getUser().getId()).remove(record.getId());
+            pending.removed.add(record.getId());
+        }
+    }
+
+//    Все пары пересекающихся записей пользователя, сортировка и проход по записям за O(n log n + k)
+    @Override
+    public List<RecordOverlapDto> findOverlaps(Long userId) {
+        return IntervalIndex.of(recordRepository.findIntervalsByUserId(userId).stream().map(this::toInterval).toList())
+                .overlaps().stream()
+                .map(overlap -> RecordOverlapDto.builder()
+                        .recordId(overlap.first().id())
+                        .overlappingRecordId(overlap.second().id())
+                        .start(new Date(overlap.start()))
+                        .end(new Date(overlap.end()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /*
+    Записи пользователя, пересекающиеся с [start, end), в порядке начала.
+    Результат запроса к базе дополняется несохраненными изменениями транзакции:
+    записи, измененные или удаленные в ней, берутся из индекса транзакции, а не из базы.
+     */
+    private List<IntervalIndex.Interval> overlapping(Long userId, long start, long end, Long excludeId) {
+        PendingChanges pending = pendingChanges();
+        if (pending == null || pending.lockedUsers.add(userId))
+            recordRepository.lockUser(LOCK_NAMESPACE, userId);
+        IntervalIndex changed = pending == null ? null : pending.byUser.get(userId);
+        List<IntervalIndex.Interval> overlapping = new ArrayList<>();
+        for (RecordInterval interval : recordRepository.findOverlappingIntervals(userId, new Date(start), new Date(end),
+                excludeId == null ? 0 : excludeId)) {
+            if (pending == null || !pending.removed.contains(interval.getId())
+                    && (changed == null || !changed.contains(interval.getId())))
+                overlapping.add(toInterval(interval));
+        }
+        if (changed != null) {
+            overlapping.addAll(changed.overlapping(start, end, excludeId));
+            overlapping.sort(Comparator.comparingLong(IntervalIndex.Interval::start)
+                    .thenComparingLong(IntervalIndex.Interval::id));
+        }
+        return overlapping;
+    }
+
+//    Изменения текущей транзакции, null вне транзакции
+    private PendingChanges pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return null;
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RecordOverlapServiceImpl.this);
+                }
+            });
+        }
+        return pending;
+    }
+
+    private void trim(Record record, List<IntervalIndex.Interval> overlapping, long start, long end) {
+        for (IntervalIndex.Interval interval : overlapping) {
+            if (interval.start() <= start) {
+                start = Math.max(start, interval.end());
+            } else {
+                end = Math.min(end, interval.start());
+                break;
+            }
+        }
+        if (start >= end)
+            throw overlapException(overlapping);
+        record.setStartTime(new Date(start));
+        record.setEndTime(new Date(end));
+    }
+
+    private IntervalIndex.Interval toInterval(Record record) {
+        return new IntervalIndex.Interval(record.getId(),
+                record.getStartTime().getTime(), record.getEndTime().getTime());
+    }
+
+    private IntervalIndex.Interval toInterval(RecordInterval record) {
+        return new IntervalIndex.Interval(record.getId(),
+                record.getStartTime().getTime(), record.getEndTime().getTime());
+    }
+
+    private static RecordOverlapException overlapException(List<IntervalIndex.Interval> overlapping) {
+        return new RecordOverlapException("Record overlaps records with ids: " + ids(overlapping));
+    }
+
+    private static List<Long> ids(List<IntervalIndex.Interval> intervals) {
+        return intervals.stream().map(IntervalIndex.Interval::id).toList();
+    }
+
+//    Записи, сохраненные и удаленные в транзакции, и пользователи, чья блокировка уже взята
+    private static class PendingChanges {
+        private final Map<Long, IntervalIndex> byUser = new HashMap<>();
+        private final Set<Long> removed = new HashSet<>();
+        private final Set<Long> lockedUsers = new HashSet<>();
+
+        private IntervalIndex intervals(Long userId) {
+            return byUser.computeIfAbsent(userId, id -> new IntervalIndex());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.service.RecordPartitionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+Обслуживание помесячных секций таблицы records.
+Секции на несколько месяцев вперед создаются заранее, чтобы новые записи
+не попадали в секцию по умолчанию. Если в ней все же оказались строки нового месяца,
+они переносятся в создаваемую секцию.
+Секции старше срока хранения отсоединяются и остаются отдельными таблицами:
+записи из них больше не видны приложению, а удаление старых данных
+сводится к DROP TABLE без построчного удаления.
+Дневная свертка при этом не меняется и продолжает учитывать отсоединенные записи.
+ */
+@Slf4j
+@Service
+public class RecordPartitionServiceImpl implements RecordPartitionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("records_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'records_'yyyy_MM");
+    private static final int LOCK_NAMESPACE = 9002;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${time-tracker.records.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+//    Срок хранения в месяцах, 0 - секции не отсоединяются
+    @Value("${time-tracker.records.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    public RecordPartitionServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /*
+    Создание будущих секций и отсоединение устаревших при старте и затем ежедневно.
+    Ошибка записывается в лог и не мешает запуску приложения, следующая попытка будет по расписанию
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${time-tracker.records.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        try {
+            createAhead();
+            if (retentionMonths > 0)
+                detachBefore(YearMonth.now().minusMonths(retentionMonths));
+        } catch (RuntimeException e) {
+            log.error("Failed to maintain records partitions", e);
+        }
+    }
+
+    /*
+    Создание недостающих секций с текущего месяца на monthsAhead месяцев вперед.
+    Каждый месяц обрабатывается в отдельной транзакции под блокировкой, поэтому
+    экземпляры приложения не создают одну секцию одновременно, а прерванное
+    создание не оставляет секцию наполовину готовой
+     */
+    @Override
+    public List<String> createAhead() {
+        List<String> created = new ArrayList<>();
+        YearMonth current = YearMonth.now();
+        for (YearMonth month = current; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            YearMonth partition = month;
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> create(partition))))
+                created.add(month.format(NAME_FORMAT));
+        }
+        return created;
+    }
+
+//    Отсоединение секций месяцев раньше month, каждая секция в отдельной транзакции под блокировкой
+    @Override
+    public List<String> detachBefore(YearMonth month) {
+        List<String> detached = new ArrayList<>();
+        for (YearMonth partition : partitions()) {
+            if (partition.isBefore(month) && Boolean.TRUE.equals(transactionTemplate.execute(status -> detach(partition))))
+                detached.add(partition.format(NAME_FORMAT));
+        }
+        return detached;
+    }
+
+    /*
+    Секция создается отдельной таблицей и присоединяется к records.
+    Строки ее месяца, попавшие в секцию по умолчанию, переносятся до присоединения,
+    иначе Postgres не позволит присоединить секцию. Индексы и внешние ключи
+    секционированной таблицы создаются на новой секции при присоединении.
+    Таблица, оставшаяся неприсоединенной, присоединяется повторно.
+    Возвращает false, если секция уже присоединена
+     */
+    private boolean create(YearMonth month) {
+        lock();
+        String name = month.format(NAME_FORMAT);
+        if (attached(name))
+            return false;
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name
+                + " (LIKE records INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.execute("WITH moved AS (DELETE FROM records_default"
+                + " WHERE start_time >= '" + from + "' AND start_time < '" + to + "' RETURNING *)"
+                + " INSERT INTO " + name + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE records ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        return true;
+    }
+
+//    Отсоединение секции, возвращает false, если она уже отсоединена
+    private boolean detach(YearMonth month) {
+        lock();
+        String name = month.format(NAME_FORMAT);
+        if (!attached(name))
+            return false;
+        jdbcTemplate.execute("ALTER TABLE records DETACH PARTITION " + name);
+        return true;
+    }
+
+//    Блокировка обслуживания секций до конца транзакции
+    private void lock() {
+        jdbcTemplate.queryForList("SELECT 1 FROM pg_advisory_xact_lock(?, 0)", Integer.class, LOCK_NAMESPACE);
+    }
+
+    private boolean attached(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM pg_inherits
+                WHERE inhparent = 'records'::regclass AND inhrelid = to_regclass(?))""", Boolean.class, name));
+    }
+
+//    Месяцы, для которых у records есть секции
+    private Set<YearMonth> partitions() {
+        Set<YearMonth> months = new TreeSet<>();
+        jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'records'::regclass""", String.class).forEach(name -> {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches())
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+        });
+        return months;
+    }
+}
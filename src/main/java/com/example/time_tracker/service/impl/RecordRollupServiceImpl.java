@@ -0,0 +1,116 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.Record;
+import com.example.time_tracker.repository.RecordDailyRollupRepository;
+import com.example.time_tracker.service.RecordRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+Поддержка таблицы record_daily_rollup - суммы времени по пользователю, проекту и дню.
+Изменения применяются в транзакции того метода, который меняет записи,
+поэтому свертка всегда согласована с таблицей records.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class RecordRollupServiceImpl implements RecordRollupService {
+
+    private final RecordDailyRollupRepository rollupRepository;
+
+//    Учет новой записи в свертке
+    @Override
+    public void add(Record record) {
+        apply(List.of(record), 1);
+    }
+
+//    Учет пачки новых записей, изменения по одному дню суммируются и применяются одним запросом
+    @Override
+    public void addAll(Collection<Record> records) {
+        apply(records, 1);
+    }
+
+//    Исключение записи из свертки, используется перед изменением и удалением
+    @Override
+    public void subtract(Record record) {
+        apply(List.of(record), -1);
+        if (record.getUser() != null) {
+            rollupRepository.deleteEmpty(record.getUser().getId(),
+                    toLocalDateTime(record.getStartTime()).toLocalDate(),
+                    toLocalDateTime(record.getEndTime()).toLocalDate());
+        }
+    }
+
+//    Строки удаляемого пользователя переносятся в строки без пользователя
+    @Override
+    public void detachUser(Long userId) {
+        rollupRepository.foldUser(userId);
+        rollupRepository.deleteByUser(userId);
+    }
+
+//    Строки удаляемого проекта переносятся в строки без проекта
+    @Override
+    public void detachProject(Long projectId) {
+        rollupRepository.foldProject(projectId);
+        rollupRepository.deleteByProject(projectId);
+    }
+
+//    Полный пересчет свертки из записей, возвращает количество получившихся строк
+    @Override
+    @Transactional
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public int rebuild() {
+        rollupRepository.lock();
+        rollupRepository.deleteAllRows();
+        return rollupRepository.fillFromRecords();
+    }
+
+    /*
+    Каждая запись делится на отрезки по календарным дням,
+    для каждого дня к свертке прибавляется длительность отрезка и одна запись.
+    Изменения по одинаковым пользователю, проекту и дню сначала суммируются,
+    поэтому на каждую строку свертки приходится один запрос.
+    Граница дня считается так же, как в базе: время хранится без часового пояса
+    в поясе приложения.
+     */
+    private void apply(Collection<Record> records, int sign) {
+        Map<RollupKey, long[]> deltas = new LinkedHashMap<>();
+        for (Record record : records) {
+            Long userId = record.getUser() == null ? null : record.getUser().getId();
+            Long projectId = record.getProject() == null ? null : record.getProject().getId();
+            LocalDateTime start = toLocalDateTime(record.getStartTime());
+            LocalDateTime end = toLocalDateTime(record.getEndTime());
+            for (LocalDate day = start.toLocalDate(); day.atStartOfDay().isBefore(end); day = day.plusDays(1)) {
+                LocalDateTime dayStart = day.atStartOfDay();
+                LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+                LocalDateTime from = start.isAfter(dayStart) ? start : dayStart;
+                LocalDateTime to = end.isBefore(dayEnd) ? end : dayEnd;
+                long[] delta = deltas.computeIfAbsent(new RollupKey(userId, projectId, day), key -> new long[2]);
+                delta[0] += Duration.between(from, to).getSeconds();
+                delta[1]++;
+            }
+        }
+        deltas.forEach((key, delta) -> rollupRepository.addDelta(key.userId(), key.projectId(), key.day(),
+                sign * delta[0], sign * (int) delta[1]));
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private record RollupKey(Long userId, Long projectId, LocalDate day) {
+    }
+}
@@ -1,83 +1,186 @@
 package com.example.time_tracker.service.impl;
 
-import com.example.time_tracker.model.Project;
 import com.example.time_tracker.model.Record;
-import com.example.time_tracker.model.User;
+import com.example.time_tracker.model.dto.RecordBatchItemDto;
+import com.example.time_tracker.model.dto.RecordBatchResultDto;
 import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.RecordOverlapDto;
+import com.example.time_tracker.model.dto.RecordPageDto;
 import com.example.time_tracker.repository.ProjectRepository;
 import com.example.time_tracker.repository.RecordRepository;
 import com.example.time_tracker.repository.UserRepository;
+import com.example.time_tracker.repository.projection.RecordView;
+import com.example.time_tracker.service.ProjectMembershipService;
+import com.example.time_tracker.service.RecordOverlapService;
+import com.example.time_tracker.service.RecordRollupService;
 import com.example.time_tracker.service.RecordService;
+import com.example.time_tracker.service.auth.CurrentUser;
+import com.example.time_tracker.util.ETags;
+import com.example.time_tracker.util.TimeRange;
 import com.example.time_tracker.util.convertor.RecordMapper;
+import com.example.time_tracker.util.datasource.PrimaryReads;
+import com.example.time_tracker.util.export.ExportFormat;
+import com.example.time_tracker.util.export.RecordExportWriter;
 import com.example.time_tracker.util.exception.ModelNotFoundException;
+import com.example.time_tracker.util.exception.RecordOverlapException;
 import com.example.time_tracker.util.exception.WrongDateOrderException;
+import com.example.time_tracker.util.pagination.RecordCursor;
+import com.example.time_tracker.util.validation.PatchValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Timed("time_tracker.service")
 public class RecordServiceImpl implements RecordService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final RecordRepository recordRepository;
     private final UserRepository userRepository;
     private final ProjectRepository projectRepository;
     private final RecordMapper recordMapper;
+    private final RecordRollupService rollupService;
+    private final RecordOverlapService overlapService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final CurrentUser currentUser;
+    private final PatchValidator patchValidator;
+    private final ProjectMembershipService membershipService;
+    private final MeterRegistry meterRegistry;
+    private final PrimaryReads primaryReads;
 
-    //Метод используется пользователем для получения всех сделанных им записей
+    //Метод используется пользователем для получения всех сделанных им записей за период
     @Override
-    public List<RecordDto> findAll() {
-        return recordMapper.toListDto(getCurrentUser().getRecords());
+    public List<RecordDto> findAll(LocalDateTime from, LocalDateTime to) {
+        TimeRange range = TimeRange.of(from, to);
+        return recordMapper.viewsToListDto(recordRepository.findAllByUserId(
+                currentUser.getId(), range.getFrom(), range.getTo()));
     }
 
     /*
-    Метод используется пользователем для получения всех сделанных им записей
+    Метод используется пользователем для получения всех сделанных им записей за период
     по конкретному, назначенному для него, проекту.
     В начале метод проверяет назначен ли текущему пользователю проект с этим id
     Если нет, генерируется исключение,
     если да, происходит запрос к базе и найденные записи возвращаются методом
      */
     @Override
-    public List<RecordDto> findAllForCurrentUserByProjectId(Long id) {
-        User user = getCurrentUser();
-        Project project = user.getProjects().stream().filter(p -> p.getId().equals(id)).findFirst().orElseThrow(
-                () -> new ModelNotFoundException("Current user has not project with id: " + id));
-        return recordMapper.toListDto(recordRepository.findAllByUserAndProject(user, project));
+    public List<RecordDto> findAllForCurrentUserByProjectId(Long id, LocalDateTime from, LocalDateTime to) {
+        TimeRange range = TimeRange.of(from, to);
+        Long userId = currentUser.getId();
+        checkProjectAssigned(userId, id);
+        return recordMapper.viewsToListDto(recordRepository.findAllByUserIdAndProjectId(
+                userId, id, range.getFrom(), range.getTo()));
     }
 
-    //    Используется пользователем для получения сделанной им записи по id
+    //    Используется пользователем для получения сделанной им записи по id,
+    //    читается с основной базы, чтобы после изменения записи сразу вернуть ее новую версию
     @Override
     public RecordDto findById(Long id) {
-        return recordMapper.modelToDto(getRecordForCurrentUserById(id));
+        return primaryReads.read(() -> recordMapper.modelToDto(getRecordForCurrentUserById(id)));
+    }
+
+//    Используется администратором для постраничного получения всех записей за период
+    @Override
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public RecordPageDto findAllGenerally(LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        TimeRange range = TimeRange.of(from, to);
+        RecordCursor after = RecordCursor.decode(cursor);
+        int limit = pageSize(size);
+        return toPage(recordRepository.findPage(range.getFrom(), range.getTo(),
+                after.getStartTime(), after.getId(), limit + 1), limit);
     }
 
-//    Используется администратором для получения всех записей
+//    Используется администратором для постраничного получения всех записей пользователя за период
     @Override
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    public List<RecordDto> findAllGenerally() {
-        return recordMapper.toListDto(recordRepository.findAll());
+    public RecordPageDto findAllByUserId(Long id, LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        if (!userRepository.existsById(id))
+            throw new ModelNotFoundException("User with id: " + id + " not found");
+        TimeRange range = TimeRange.of(from, to);
+        RecordCursor after = RecordCursor.decode(cursor);
+        int limit = pageSize(size);
+        return toPage(recordRepository.findPageByUserId(id, range.getFrom(), range.getTo(),
+                after.getStartTime(), after.getId(), limit + 1), limit);
     }
 
-//    Используется администратором для получения всех записей пользователя
+//    Используется администратором для постраничного получения всех записей проекта за период
     @Override
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    public List<RecordDto> findAllByUserId(Long id) {
-        return recordMapper.toListDto(userRepository.findById(id).orElseThrow(
-                () -> new ModelNotFoundException("User with id: " + id + " not found")).getRecords());
+    public RecordPageDto findAllByProjectId(Long id, LocalDateTime from, LocalDateTime to, String cursor, int size) {
+        if (!projectRepository.existsById(id))
+            throw new ModelNotFoundException("Project with id: " + id + " not found");
+        TimeRange range = TimeRange.of(from, to);
+        RecordCursor after = RecordCursor.decode(cursor);
+        int limit = pageSize(size);
+        return toPage(recordRepository.findPageByProjectId(id, range.getFrom(), range.getTo(),
+                after.getStartTime(), after.getId(), limit + 1), limit);
+    }
+
+//    Используется пользователем для получения пересекающихся между собой его записей
+    @Override
+    public List<RecordOverlapDto> findOverlapsForCurrentUser() {
+        return overlapService.findOverlaps(currentUser.getId());
     }
 
-//    Используется администратором для получения всех записей проекта
+//    Используется администратором для получения пересекающихся записей пользователя
     @Override
     @PreAuthorize("hasRole('ROLE_ADMIN')")
-    public List<RecordDto> findAllByProjectId(Long id) {
-        return recordMapper.toListDto(projectRepository.findById(id).orElseThrow(
-                () -> new ModelNotFoundException("Project with id: " + id + " not found")).getRecords());
+    public List<RecordOverlapDto> findOverlapsByUserId(Long id) {
+        if (!userRepository.existsById(id))
+            throw new ModelNotFoundException("User with id: " + id + " not found");
+        return overlapService.findOverlaps(id);
+    }
+
+    /*
+    Используется администратором для выгрузки всех записей в поток ответа.
+    Записи читаются из базы однонаправленным потоком и сразу пишутся в ответ,
+    контекст персистентности периодически очищается,
+    поэтому потребление памяти не зависит от количества записей.
+     */
+    @Override
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public void exportAll(ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<Record> records = recordRepository.streamAll();
+             RecordExportWriter writer = RecordExportWriter.of(format, out, objectMapper)) {
+            Iterator<Record> iterator = records.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                writer.write(recordMapper.modelToExportDto(iterator.next()));
+                if (++written % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
     /*
@@ -88,78 +191,207 @@ public class RecordServiceImpl implements RecordService {
     Далее происходит получение текущего пользователя и проверка,
     назначен ли ему проект с данным id,если нет выбрасывается исключение
     После чего записи назначаются пользователь и проект к которым эта запись относится,
-    и запись сохраняется в базе.
+    пересечения с другими записями пользователя обрабатываются по настроенной политике,
+    и запись сохраняется в базе, а ее время учитывается в дневной свертке.
      */
     @Override
     @Transactional
     public RecordDto createByProjectId(Long id, RecordDto recordDto) {
         if (!recordDto.getEndTime().after(recordDto.getStartTime()))
             throw new WrongDateOrderException("Start time should be before end time");
-        User user = getCurrentUser();
-        Project project = user.getProjects().stream().filter(p -> p.getId().equals(id)).findFirst().orElseThrow(
-                () -> new ModelNotFoundException("Current user has not project with id: " + id));
+        Long userId = currentUser.getId();
+        checkProjectAssignedForUpdate(userId, id);
         Record record = recordMapper.dtoToModel(recordDto);
-        record.setUser(user);
-        record.setProject(project);
-        user.getRecords().add(record);
-        project.getRecords().add(record);
+        record.setUser(userRepository.getReferenceById(userId));
+        record.setProject(projectRepository.getReferenceById(id));
+        overlapService.resolve(record);
         recordRepository.save(record);
+        overlapService.put(record);
+        rollupService.add(record);
+        countCreated("single", 1);
         return recordMapper.modelToDto(record);
     }
 
+    /*
+    Создает пачку записей текущего пользователя, например накопленных клиентом без сети.
+    Назначение всех проектов пачки проверяется одним запросом к основной базе, без запроса на каждый элемент.
+    Каждый элемент проверяется отдельно: при ошибке валидации, неверном порядке времени,
+    чужом проекте или недопустимом пересечении с другими записями, в том числе из этой же пачки,
+    элемент отклоняется с описанием причины, остальные записи создаются.
+    Записи вставляются пакетами JDBC при завершении транзакции,
+    изменения дневной свертки суммируются по дням и применяются вместе.
+    Результаты возвращаются в порядке элементов во входном массиве.
+     */
+    @Override
+    @Transactional
+    public List<RecordBatchResultDto> createBatch(List<RecordBatchItemDto> items) {
+        if (items.size() > MAX_BATCH_SIZE)
+            throw new ValidationException("Batch should contain at most " + MAX_BATCH_SIZE + " records");
+        Long userId = currentUser.getId();
+        Set<Long> projectIds = items.stream().map(RecordBatchItemDto::getProjectId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> assigned = membershipService.findAssignedForUpdate(userId, projectIds);
+
+        List<RecordBatchResultDto> results = new ArrayList<>(items.size());
+        Map<Integer, Record> created = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            RecordBatchItemDto item = items.get(i);
+            List<String> errors = validateBatchItem(item, assigned);
+            if (!errors.isEmpty()) {
+                results.add(RecordBatchResultDto.builder().index(i).errors(errors).build());
+                continue;
+            }
+            Record record = recordMapper.dtoToModel(item.getRecord());
+            record.setId(null);
+            record.setUser(userRepository.getReferenceById(userId));
+            record.setProject(projectRepository.getReferenceById(item.getProjectId()));
+            try {
+                overlapService.resolve(record);
+            } catch (RecordOverlapException e) {
+                results.add(RecordBatchResultDto.builder().index(i).errors(List.of(e.getMessage())).build());
+                continue;
+            }
+            recordRepository.save(record);
+            overlapService.put(record);
+            created.put(i, record);
+            results.add(null);
+        }
+
+        rollupService.addAll(created.values());
+        countCreated("batch", created.size());
+        created.forEach((index, record) -> results.set(index,
+                RecordBatchResultDto.builder().index(index).record(recordMapper.modelToDto(record)).build()));
+        return results;
+    }
+
     /*
     Обновляет запись созданную текущим пользователем.
     Сначала происходит проверка времени,
     время начала должно быть раньше времени окончания,
     если это не так генерируется исключение.
-    Далее происходит получение записи текущего пользователя и проверка,
-    если запись с данным id сделана не текущим пользователем выбрасывается исключение.
-    После чего новой записи назначаются id, пользователь и проект старой записи,
-    и запись сохраняется в базе.
+    Далее одним запросом загружается запись с данным id, принадлежащая текущему пользователю,
+    если такой записи нет выбрасывается исключение.
+    Старое время исключается из дневной свертки, поля загруженной записи заменяются новыми,
+    пересечения обрабатываются по настроенной политике,
+    и изменения сохраняются одним UPDATE с проверкой версии. Новое время учитывается в свертке.
+    Если version передана и не совпадает с версией записи, выбрасывается PreconditionFailedException
      */
     @Override
     @Transactional
-    public RecordDto updateById(Long id, RecordDto recordDto) {
+    public RecordDto updateById(Long id, RecordDto recordDto, Long version) {
         if (!recordDto.getEndTime().after(recordDto.getStartTime()))
             throw new WrongDateOrderException("Start time should be before end time");
         Record record = getRecordForCurrentUserById(id);
-        if (recordRepository.existsById(id)) {
-            Record updated = recordMapper.dtoToModel(recordDto);
-            updated.setId(id);
-            updated.setUser(record.getUser());
-            updated.setProject(record.getProject());
-            return recordMapper.modelToDto(recordRepository.save(updated));
-        } else {
-            throw new ModelNotFoundException("Record with id: " + id + " not found");
-        }
+        ETags.checkVersion(version, record.getVersion());
+        rollupService.subtract(record);
+        recordMapper.updateModel(recordDto, record);
+        return saveUpdated(record);
+    }
+
+//    Метод меняет только переданные поля записи (null означает "не менять", очистить описание можно только через PUT), порядок времени проверяется уже для получившейся записи,
+//    в остальном так же, как updateById
+    @Override
+    @Transactional
+    public RecordDto patchById(Long id, RecordDto recordDto, Long version) {
+        patchValidator.validate(recordDto);
+        Record record = getRecordForCurrentUserById(id);
+        ETags.checkVersion(version, record.getVersion());
+        rollupService.subtract(record);
+        recordMapper.patchModel(recordDto, record);
+        if (!record.getEndTime().after(record.getStartTime()))
+            throw new WrongDateOrderException("Start time should be before end time");
+        return saveUpdated(record);
+    }
+
+//    Изменения сбрасываются в базу до возврата, чтобы ответ содержал уже увеличенную версию
+    private RecordDto saveUpdated(Record record) {
+        overlapService.resolve(record);
+        overlapService.put(record);
+        rollupService.add(record);
+        recordRepository.flush();
+        return recordMapper.modelToDto(record);
     }
 
     /*
     Метод удаляет запись по id
-    Сначала происходит проверка что запись с данным id сделана текущим пользователем
-    Если это не так генерируется исключение, если проверка пройдена, запись удаляется
+    Запись загружается одним запросом по id записи и id текущего пользователя,
+    если запись сделана не текущим пользователем генерируется исключение,
+    иначе ее время исключается из свертки и запись удаляется
      */
     @Override
     @Transactional
     public void deleteById(Long id) {
-        User user = getCurrentUser();
         Record record = getRecordForCurrentUserById(id);
-        user.getRecords().remove(record);
-        recordRepository.delete(recordRepository.findById(id).orElseThrow(
-                () -> new ModelNotFoundException("Record with id: " + id + " not found")));
+        rollupService.subtract(record);
+        overlapService.remove(record);
+        recordRepository.delete(record);
     }
 
-//    Получение текущего авторизованного пользователя из контекста
-    private User getCurrentUser() {
-        return userRepository.findByUsername(
-                SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(
-                () -> new UsernameNotFoundException("Authenticated user not found"));
+//    Проверка, что проект с projectId назначен пользователю, иначе выбрасывается исключение
+    private void checkProjectAssigned(Long userId, Long projectId) {
+        if (!membershipService.isMember(userId, projectId))
+            throw new ModelNotFoundException("Current user has not project with id: " + projectId);
     }
 
-//    Получение записи у текущего пользователя по её id
+//    Та же проверка для изменяющих операций, выполняется по основной базе без кэша
+    private void checkProjectAssignedForUpdate(Long userId, Long projectId) {
+        if (!membershipService.isMemberForUpdate(userId, projectId))
+            throw new ModelNotFoundException("Current user has not project with id: " + projectId);
+    }
+
+//    Получение записи у текущего пользователя по её id одним запросом к базе
 //    Если запись с этим id создана не текущим пользователем генерируется исключение
     private Record getRecordForCurrentUserById(Long id) {
-        return getCurrentUser().getRecords().stream().filter(r -> r.getId().equals(id)).findFirst().orElseThrow(
+        return recordRepository.findByIdAndUserId(id, currentUser.getId()).orElseThrow(
                 () -> new ModelNotFoundException("Current user has not record with id: " + id));
     }
+
+//    Проверка элемента пачки, возвращает список ошибок, пустой если элемент корректен
+    private List<String> validateBatchItem(RecordBatchItemDto item, Set<Long> assigned) {
+        if (item == null)
+            return List.of("Item should not be empty");
+        List<String> errors = validator.validate(item).stream()
+                .map(ConstraintViolation::getMessage).collect(Collectors.toList());
+        if (!errors.isEmpty())
+            return errors;
+        if (!item.getRecord().getEndTime().after(item.getRecord().getStartTime()))
+            return List.of("Start time should be before end time");
+        if (!assigned.contains(item.getProjectId()))
+            return List.of("Current user has not project with id: " + item.getProjectId());
+        return List.of();
+    }
+
+//    Размер страницы ограничивается сверху, чтобы один запрос не мог выгрузить всю таблицу
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+//    Формирование страницы: из базы запрашивается на одну строку больше лимита,
+//    если она пришла, значит есть следующая страница и по последней записи строится курсор
+    private RecordPageDto toPage(List<RecordView> views, int limit) {
+        List<RecordDto> records = recordMapper.viewsToListDto(views);
+        String next = null;
+        if (records.size() > limit) {
+            records = records.subList(0, limit);
+            next = RecordCursor.after(records.get(limit - 1)).encode();
+        }
+        return RecordPageDto.builder().records(records).next(next).build();
+    }
+
+//    Счетчик созданных записей увеличивается только после фиксации транзакции, откаченные записи не учитываются
+    private void countCreated(String source, int count) {
+        if (count == 0)
+            return;
+        Runnable increment = () -> meterRegistry.counter("time_tracker.records.created", "source", source).increment(count);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,64 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.dto.HoursReportDto;
+import com.example.time_tracker.repository.RecordDailyRollupRepository;
+import com.example.time_tracker.service.RecordRollupService;
+import com.example.time_tracker.service.ReportService;
+import com.example.time_tracker.util.ReportGroup;
+import com.example.time_tracker.util.convertor.ReportMapper;
+import com.example.time_tracker.util.exception.WrongDateOrderException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ReportServiceImpl implements ReportService {
+
+    private final RecordDailyRollupRepository rollupRepository;
+    private final RecordRollupService rollupService;
+    private final ReportMapper reportMapper;
+
+    /*
+    Используется администратором для получения отработанного времени
+    за период с from по to включительно с группировкой по пользователю, проекту и дню.
+    Данные берутся из дневной свертки record_daily_rollup, поэтому время ответа
+    зависит от количества дней и групп, а не от количества записей.
+    Запись, переходящая через полночь, учитывается в каждом из своих дней.
+    Записи удаленных пользователей и проектов остаются с пустым user_id или project_id.
+    Пустые ключи не выводятся, поэтому при группировке по пользователю или проекту строка
+    получает признак detached, иначе ее нельзя отличить от строки без этого измерения.
+    Если конец периода раньше начала генерируется исключение.
+     */
+    @Override
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public List<HoursReportDto> findHours(List<String> groupBy, LocalDate from, LocalDate to) {
+        if (to.isBefore(from))
+            throw new WrongDateOrderException("Report start date should not be after end date");
+        Set<ReportGroup> groups = EnumSet.noneOf(ReportGroup.class);
+        groupBy.forEach(name -> groups.add(ReportGroup.of(name)));
+        boolean byUser = groups.contains(ReportGroup.USER);
+        boolean byProject = groups.contains(ReportGroup.PROJECT);
+        List<HoursReportDto> rows = reportMapper.toListDto(rollupRepository.sumHours(
+                byUser, byProject, groups.contains(ReportGroup.DAY), from, to));
+        if (byUser || byProject)
+            rows.forEach(row -> row.setDetached(byUser && row.getUserId() == null
+                    || byProject && row.getProjectId() == null));
+        return rows;
+    }
+
+//    Пересчет дневной свертки из записей, используется для проверки и восстановления
+    @Override
+    @Transactional
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public int rebuildRollup() {
+        return rollupService.rebuild();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.ActiveTimer;
+import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.TimerDto;
+import com.example.time_tracker.repository.ActiveTimerRepository;
+import com.example.time_tracker.service.ProjectMembershipService;
+import com.example.time_tracker.service.RecordService;
+import com.example.time_tracker.service.TimerService;
+import com.example.time_tracker.service.auth.CurrentUser;
+import com.example.time_tracker.util.exception.ModelNotFoundException;
+import com.example.time_tracker.util.exception.TimerStateException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+Запущенные таймеры пользователей.
+Таблица active_timers является источником истины: запуск решается вставкой строки по user_id,
+остановка - ее удалением, поэтому второй таймер нельзя запустить, а один таймер остановить дважды
+ни на этом, ни на другом экземпляре приложения, и таймеры переживают перезапуск.
+Таймеры также хранятся в памяти по id пользователя только как кэш для получения текущего таймера
+без обращения к базе, память меняется после фиксации транзакции.
+Таймеры, запущенные или остановленные на других экземплярах, попадают в память этого
+экземпляра при периодической перезагрузке, поэтому текущий таймер может отставать
+от базы на интервал time-tracker.timers.refresh-interval.
+При остановке таймер превращается в обычную запись через RecordService.
+ */
+@Slf4j
+@Service
+public class TimerServiceImpl implements TimerService {
+
+    private final ActiveTimerRepository timerRepository;
+    private final ProjectMembershipService membershipService;
+    private final RecordService recordService;
+    private final CurrentUser currentUser;
+
+    private final ConcurrentMap<Long, ActiveTimer> timers = new ConcurrentHashMap<>();
+
+    public TimerServiceImpl(ActiveTimerRepository timerRepository, ProjectMembershipService membershipService,
+                            RecordService recordService, CurrentUser currentUser) {
+        this.timerRepository = timerRepository;
+        this.membershipService = membershipService;
+        this.recordService = recordService;
+        this.currentUser = currentUser;
+    }
+
+//    Запуск таймера по назначенному пользователю проекту, одновременно может работать один таймер
+    @Override
+    @Transactional
+    public TimerDto start(TimerDto timerDto) {
+        Long userId = currentUser.getId();
+        Long projectId = timerDto.getProjectId();
+        if (!membershipService.isMemberForUpdate(userId, projectId))
+            throw new ModelNotFoundException("Current user has not project with id: " + projectId);
+        ActiveTimer timer = ActiveTimer.builder()
+                .userId(userId)
+                .projectId(projectId)
+                .description(timerDto.getDescription())
+                .startTime(now())
+                .build();
+        if (timerRepository.insertIfAbsent(timer.getUserId(), timer.getProjectId(),
+                timer.getDescription(), timer.getStartTime()) == 0)
+            throw new TimerStateException("Timer is already running");
+        afterCommit(() -> timers.put(userId, timer));
+        return toDto(timer);
+    }
+
+    /*
+    Остановка таймера и создание записи с временем от запуска до текущего момента.
+    Таймер читается из базы и сразу удаляется. Если строку уже удалил другой запрос,
+    в том числе на другом экземпляре, таймер считается не запущенным, и вторая запись не создается.
+    Если запись создать не удалось, например она пересекается с другими записями
+    или получилась короче секунды, откат транзакции возвращает строку, и таймер продолжает работать.
+    Если проект удален или больше не назначен пользователю, таймер сбрасывается.
+     */
+    @Override
+    @Transactional(noRollbackFor = ModelNotFoundException.class)
+    public RecordDto stop() {
+        Long userId = currentUser.getId();
+        ActiveTimer cached = timers.get(userId);
+        ActiveTimer timer = timerRepository.findById(userId).orElse(null);
+        if (timer == null || timerRepository.deleteByUserId(userId) == 0) {
+            if (cached != null)
+                timers.remove(userId, cached);
+            throw new TimerStateException("Timer is not running");
+        }
+        afterCommit(() -> timers.remove(userId));
+        if (!membershipService.isMemberForUpdate(userId, timer.getProjectId()))
+            throw new ModelNotFoundException("Current user has not project with id: " + timer.getProjectId());
+        return recordService.createByProjectId(timer.getProjectId(), RecordDto.builder()
+                .description(timer.getDescription())
+                .startTime(timer.getStartTime())
+                .endTime(now())
+                .build());
+    }
+
+//    Текущий таймер пользователя, база не используется
+    @Override
+    public Optional<TimerDto> current() {
+        return Optional.ofNullable(timers.get(currentUser.getId())).map(this::toDto);
+    }
+
+//    Сброс таймера удаляемого пользователя, строка в базе удаляется каскадно
+    @Override
+    public void evict(Long userId) {
+        timers.remove(userId);
+    }
+
+//    Сброс таймеров удаляемого проекта, строки в базе удаляются каскадно
+    @Override
+    public void evictByProjectId(Long projectId) {
+        timers.values().removeIf(timer -> timer.getProjectId().equals(projectId));
+    }
+
+    /*
+    Перезагрузка таймеров из базы при старте и затем периодически.
+    Таймеры, которых нет в базе, удаляются из памяти, появившиеся в базе добавляются.
+    Таймеры, запущенные или остановленные на этом экземпляре во время загрузки, не затрагиваются:
+    удаляются только те же объекты, что были в памяти до запроса, и добавляются только отсутствующие.
+    Ошибка загрузки записывается в лог, таймеры в памяти остаются прежними до следующей попытки.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${time-tracker.timers.refresh-interval:60000}",
+            initialDelayString = "${time-tracker.timers.refresh-interval:60000}")
+    public void refresh() {
+        Map<Long, ActiveTimer> before = Map.copyOf(timers);
+        List<ActiveTimer> stored;
+        try {
+            stored = timerRepository.findAll();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload active timers", e);
+            return;
+        }
+        Map<Long, ActiveTimer> byUser = stored.stream()
+                .collect(Collectors.toMap(ActiveTimer::getUserId, Function.identity()));
+        before.forEach((userId, timer) -> {
+            if (!byUser.containsKey(userId))
+                timers.remove(userId, timer);
+        });
+        byUser.forEach((userId, timer) -> {
+            if (!before.containsKey(userId))
+                timers.putIfAbsent(userId, timer);
+        });
+    }
+
+//    Изменение памяти после фиксации транзакции, вне транзакции сразу
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+//    Время таймера хранится с точностью до секунды, как и время записей
+    private static Date now() {
+        return new Date(System.currentTimeMillis() / 1000 * 1000);
+    }
+
+    private TimerDto toDto(ActiveTimer timer) {
+        return TimerDto.builder()
+                .projectId(timer.getProjectId())
+                .description(timer.getDescription())
+                .startTime(timer.getStartTime())
+                .build();
+    }
+}
@@ -1,118 +1,224 @@
 package com.example.time_tracker.service.impl;
 
-import com.example.time_tracker.model.Project;
 import com.example.time_tracker.model.User;
 import com.example.time_tracker.model.auth.RegistrationRequest;
 import com.example.time_tracker.repository.ProjectRepository;
+import com.example.time_tracker.repository.RecordRepository;
 import com.example.time_tracker.repository.UserRepository;
+import com.example.time_tracker.service.ProjectMembershipService;
+import com.example.time_tracker.service.RecordRollupService;
+import com.example.time_tracker.service.TimerService;
 import com.example.time_tracker.service.UserService;
+import com.example.time_tracker.service.auth.CurrentUser;
+import com.example.time_tracker.service.auth.LoginDetailsService;
+import com.example.time_tracker.service.auth.RefreshTokenService;
+import com.example.time_tracker.service.auth.TokenRevocationService;
+import com.example.time_tracker.util.ETags;
+import com.example.time_tracker.util.Role;
 import com.example.time_tracker.util.convertor.RequestMapper;
 import com.example.time_tracker.util.convertor.UserMapper;
 import com.example.time_tracker.model.dto.UserDto;
+import com.example.time_tracker.util.datasource.PrimaryReads;
 import com.example.time_tracker.util.exception.ModelNotFoundException;
+import com.example.time_tracker.util.validation.PatchValidator;
+import jakarta.validation.ValidationException;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
+@Timed("time_tracker.service")
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final ProjectRepository projectRepository;
+    private final RecordRepository recordRepository;
     private final UserMapper userMapper;
     private final RequestMapper requestMapper;
+    private final RecordRollupService rollupService;
+    private final TimerService timerService;
+    private final TokenRevocationService revocationService;
+    private final LoginDetailsService loginDetailsService;
+    private final CurrentUser currentUser;
+    private final RefreshTokenService refreshTokenService;
+    private final ProjectMembershipService membershipService;
+    private final PasswordEncoder passwordEncoder;
+    private final PatchValidator patchValidator;
+    private final PrimaryReads primaryReads;
 
 //    Возвращает список всех пользователей
     @Override
     public List<UserDto> findAll() {
-        return userMapper.toListDto(userRepository.findAll());
+        return userRepository.findAllDtos();
     }
 
 //    Возвращает пользователя по id, если id указан неверно, выбрасывается исключение
     @Override
     public UserDto findById(Long id) {
-        return userMapper.modelToDto(
+        return primaryReads.read(() -> userMapper.modelToDto(
                 userRepository.findById(id).orElseThrow(
-                        () -> new ModelNotFoundException("User with id: " + id + " not found")));
+                        () -> new ModelNotFoundException("User with id: " + id + " not found"))));
     }
 
 //    Используется текущим пользователем для получения своих же данных
     @Override
     @PreAuthorize("hasRole('ROLE_USER')")
     public UserDto findCurrentUser() {
-        return userMapper.modelToDto(userRepository.findByUsername(
-                SecurityContextHolder.getContext().getAuthentication().getName()).orElseThrow(
-                () -> new UsernameNotFoundException("Authenticated user not found")));
+        return primaryReads.read(() -> userMapper.modelToDto(userRepository.findById(currentUser.getId()).orElseThrow(
+                () -> new UsernameNotFoundException("Authenticated user not found"))));
     }
 
 //    Возвращает список пользователей назначенных на проект с id,
-//    если id указан неверно выбрасывается исключение
+//    если id указан неверно выбрасывается исключение, существование проекта проверяется только когда список пуст
     @Override
     public List<UserDto> findAllByProjectId(Long id) {
-        return userMapper.toListDto(projectRepository.findById(id).orElseThrow(
-                () -> new ModelNotFoundException("Project with id: " + id + " not found")).getUsers());
+        List<UserDto> users = userRepository.findAllByProjectId(id);
+        if (users.isEmpty() && !projectRepository.existsById(id))
+            throw new ModelNotFoundException("Project with id: " + id + " not found");
+        return users;
     }
 
-//    Обновление пользователя по id, если id указан неверно выбрасывается исключение
+    /*
+    Обновление пользователя по id, пароль сохраняется в виде хэша, назначенные проекты не меняются.
+    Если изменились имя, роль или пароль, выпущенные токены доступа и обновления отзываются,
+    а прежнее и новое имя удаляются из кэша аутентификации.
+    Если id указан неверно выбрасывается исключение, если version передана и не совпадает
+    с версией пользователя, выбрасывается PreconditionFailedException
+     */
     @Override
     @Transactional
-    public UserDto updateById(Long id, RegistrationRequest request) {
-        if (userRepository.existsById(id)) {
-            User user = requestMapper.requestToModel(request);
-            user.setId(id);
-            return userMapper.modelToDto(userRepository.save(user));
-        } else {
-            throw new ModelNotFoundException("User with id: " + id + " not found");
+    public UserDto updateById(Long id, RegistrationRequest request, Long version) {
+        User user = getUserForUpdate(id, version);
+        String username = user.getUsername();
+        Role role = user.getRole();
+        requestMapper.updateModel(request, user);
+        return saveUpdated(user, username, role, request.getPassword());
+    }
+
+//    Частичное изменение пользователя по id: меняются только переданные поля, пароль меняется,
+//    только если он передан вместе с совпадающим passwordConfirm, в остальном так же, как updateById
+    @Override
+    @Transactional
+    public UserDto patchById(Long id, RegistrationRequest request, Long version) {
+        patchValidator.validate(request);
+        if (request.getPassword() != null && !request.getPassword().equals(request.getPasswordConfirm()))
+            throw new ValidationException("The password and passwordConfirm fields should match");
+        User user = getUserForUpdate(id, version);
+        String username = user.getUsername();
+        Role role = user.getRole();
+        requestMapper.patchModel(request, user);
+        return saveUpdated(user, username, role, request.getPassword());
+    }
+
+    private User getUserForUpdate(Long id, Long version) {
+        User user = userRepository.findById(id).orElseThrow(
+                () -> new ModelNotFoundException("User with id: " + id + " not found"));
+        ETags.checkVersion(version, user.getVersion());
+        return user;
+    }
+
+//    Изменения сбрасываются в базу до возврата, чтобы ответ содержал уже увеличенную версию
+    private UserDto saveUpdated(User user, String username, Role role, String password) {
+        if (password != null)
+            user.setPassword(passwordEncoder.encode(password));
+        if (password != null || role != user.getRole() || !username.equals(user.getUsername())) {
+            revocationService.revoke(user.getId());
+            refreshTokenService.revokeAll(user.getId());
+            loginDetailsService.evict(username);
+            loginDetailsService.evict(user.getUsername());
         }
+        userRepository.flush();
+        return userMapper.modelToDto(user);
     }
 
-//    Удаление пользователя по id из базы и у назначенных ему проектов,
-//    если id указан неверно выбрасывается исключение
+    /*
+    Удаление пользователя по id из базы и у назначенных ему проектов, его записи остаются без пользователя,
+    время пользователя в дневной свертке переносится в строки без пользователя, его токены отзываются,
+    если id указан неверно выбрасывается исключение.
+    Назначения, записи и сам пользователь меняются отдельными запросами без загрузки коллекций,
+    поэтому число запросов не зависит от числа его проектов и записей
+     */
     @Override
     @Transactional
     public void deleteById(Long id) {
-        User user = userRepository.findById(id).orElseThrow(
-                        () -> new ModelNotFoundException("User with id: " + id + " not found"));
-        List<Project> projects = user.getProjects();
-        projects.forEach(p -> p.getUsers().remove(user));
-        userRepository.delete(user);
+        String username = userRepository.findById(id).map(User::getUsername).orElseThrow(
+                () -> new ModelNotFoundException("User with id: " + id + " not found"));
+        projectRepository.deleteMembershipsByUserId(id);
+        recordRepository.detachUser(id);
+        rollupService.detachUser(id);
+        membershipService.evict(id);
+        timerService.evict(id);
+        revocationService.revoke(id);
+        loginDetailsService.evict(username);
+        userRepository.deleteInBulkById(id);
     }
 
 //    Назначение пользователю с userId проекта с projectId,
-//    если id указаны неверно выбрасывается исключение
+//    если id указаны неверно выбрасывается исключение, повторное назначение ничего не меняет
     @Override
     @Transactional
     public void createUserProjectRelation(Long userId, Long projectId) {
-        User user = userRepository.findById(userId).orElseThrow(
-                () -> new ModelNotFoundException("User with id: " + userId + " not found"));
-        Project project = projectRepository.findById(projectId).orElseThrow(
-                () -> new ModelNotFoundException("Project with id: " + projectId + " not found"));
-
-        user.getProjects().add(project);
-        project.getUsers().add(user);
+        createUserProjectRelations(Set.of(userId), Set.of(projectId));
     }
 
 //    Удаление пользователя с userId из проекта с projectId,
-//    если id указаны неверно выбрасывается исключение
+//    если id указаны неверно или пользователь не назначен на проект выбрасывается исключение
     @Override
     @Transactional
     public void deleteUserProjectRelation(Long userId, Long projectId) {
-        User user = userRepository.findById(userId).orElseThrow(
-                () -> new ModelNotFoundException("User with id: " + userId + " not found"));
-        Project project = projectRepository.findById(projectId).orElseThrow(
-                () -> new ModelNotFoundException("Project with id: " + projectId + " not found"));
+        checkExist(Set.of(userId), Set.of(projectId));
+        if (!projectRepository.existsMembership(userId, projectId))
+            throw new ModelNotFoundException("User with id=" + userId +" has no relation to project with id=" + projectId);
+        deleteMemberships(Set.of(userId), Set.of(projectId));
+    }
+
+    /*
+    Назначение каждого пользователя из userIds на каждый проект из projectIds.
+    Назначения вставляются одним запросом в user_project, коллекции пользователей и проектов не загружаются,
+    уже существующие назначения пропускаются, поэтому повтор запроса безопасен.
+    Если каких-то пользователей или проектов нет, выбрасывается исключение со списком их id
+     */
+    @Override
+    @Transactional
+    public void createUserProjectRelations(Set<Long> userIds, Set<Long> projectIds) {
+        checkExist(userIds, projectIds);
+        projectRepository.insertMemberships(userIds, projectIds);
+        membershipService.evictRelations(userIds, projectIds);
+    }
 
-        user.getProjects().stream().filter(r -> r.getId().equals(projectId)).findFirst().orElseThrow(
-                () -> new ModelNotFoundException("User with id=" + userId +" has no relation to project with id=" + projectId));
+//    Снятие каждого пользователя из userIds с каждого проекта из projectIds одним запросом,
+//    отсутствующие назначения пропускаются, если каких-то id нет в базе выбрасывается исключение
+    @Override
+    @Transactional
+    public void deleteUserProjectRelations(Set<Long> userIds, Set<Long> projectIds) {
+        checkExist(userIds, projectIds);
+        deleteMemberships(userIds, projectIds);
+    }
+
+    private void deleteMemberships(Set<Long> userIds, Set<Long> projectIds) {
+        projectRepository.deleteMemberships(userIds, projectIds);
+        membershipService.evictRelations(userIds, projectIds);
+    }
 
-        user.getProjects().remove(project);
-        project.getUsers().remove(user);
+//    Проверка, что все пользователи и проекты существуют, проверяется одним запросом на каждую таблицу
+    private void checkExist(Set<Long> userIds, Set<Long> projectIds) {
+        Set<Long> missingUsers = new TreeSet<>(userIds);
+        missingUsers.removeAll(userRepository.findExistingIds(userIds));
+        if (!missingUsers.isEmpty())
+            throw new ModelNotFoundException("Users with ids: " + missingUsers + " not found");
+        Set<Long> missingProjects = new TreeSet<>(projectIds);
+        missingProjects.removeAll(projectRepository.findExistingIds(projectIds));
+        if (!missingProjects.isEmpty())
+            throw new ModelNotFoundException("Projects with ids: " + missingProjects + " not found");
     }
 }
@@ -0,0 +1,53 @@
+package com.example.time_tracker.util;
+
+import com.example.time_tracker.util.exception.PreconditionFailedException;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Function;
+
+/*
+Преобразование версии сущности в ETag и обратно.
+ETag - это версия в кавычках, слабая форма W/"..." при разборе If-Match тоже принимается.
+Отсутствующий заголовок и "*" означают, что изменение выполняется без проверки версии.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+//    ETag для версии, null если версия неизвестна
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+//    Ответ 200 с ETag версии тела, без ETag если тела или версии нет
+    public static <T> ResponseEntity<T> ok(T body, Function<T, Long> version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        String eTag = body == null ? null : of(version.apply(body));
+        if (eTag != null)
+            builder.eTag(eTag);
+        return builder.body(body);
+    }
+
+//    Версия из заголовка If-Match, null если проверять версию не нужно
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+            return null;
+        String value = ifMatch.trim();
+        if (value.startsWith("W/"))
+            value = value.substring(2);
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\""))
+            throw new PreconditionFailedException("If-Match header should contain a single quoted version");
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match header should contain a single quoted version", e);
+        }
+    }
+
+//    Проверка, что изменяемая сущность имеет ожидаемую клиентом версию
+    public static void checkVersion(Long expected, Long actual) {
+        if (expected != null && !expected.equals(actual))
+            throw new PreconditionFailedException("Version " + expected + " does not match current version " + actual);
+    }
+}
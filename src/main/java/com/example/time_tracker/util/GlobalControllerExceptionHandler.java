@@ -7,6 +7,7 @@ import jakarta.validation.ValidationException;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -66,6 +67,37 @@ public class GlobalControllerExceptionHandler extends ResponseEntityExceptionHan
                 new HttpHeaders(), HttpStatus.NOT_MODIFIED, request);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursorException(RuntimeException ex, WebRequest request){
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
+
+    @ExceptionHandler(value = { RecordOverlapException.class, TimerStateException.class })
+    public ResponseEntity<Object> handleConflictException(RuntimeException ex, WebRequest request){
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Object> handleTooManyRequestsException(RuntimeException ex, WebRequest request) {
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.TOO_MANY_REQUESTS, request);
+    }
+
+//    Версия в If-Match не совпала с текущей или сущность изменили параллельно между чтением и записью
+    @ExceptionHandler(value = { PreconditionFailedException.class, OptimisticLockingFailureException.class })
+    public ResponseEntity<Object> handlePreconditionFailedException(RuntimeException ex, WebRequest request) {
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.PRECONDITION_FAILED, request);
+    }
+
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<Object> handleInvalidTokenException(RuntimeException ex, WebRequest request) {
+        return handleExceptionInternal(ex, ex.getMessage(),
+                new HttpHeaders(), HttpStatus.UNAUTHORIZED, request);
+    }
+
     @ExceptionHandler(ExpiredJwtException.class)
     public ResponseEntity<Object> handleExpiredJwtException(RuntimeException ex, WebRequest request) {
         return handleExceptionInternal(ex, ex.getMessage(),
@@ -0,0 +1,17 @@
+package com.example.time_tracker.util;
+
+import jakarta.validation.ValidationException;
+
+public enum ReportGroup {
+    USER, PROJECT, DAY;
+
+//    Получение группировки по ее имени из запроса без учета регистра
+    public static ReportGroup of(String name) {
+        for (ReportGroup group : values()) {
+            if (group.name().equalsIgnoreCase(name.trim())) {
+                return group;
+            }
+        }
+        throw new ValidationException("Report can be grouped only by user, project or day");
+    }
+}
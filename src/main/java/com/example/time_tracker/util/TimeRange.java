@@ -0,0 +1,32 @@
+package com.example.time_tracker.util;
+
+import com.example.time_tracker.util.exception.WrongDateOrderException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/*
+Полуоткрытый интервал [from, to) для фильтрации записей по start_time.
+Не заданные границы заменяются крайними значениями, поэтому запрос
+всегда имеет одинаковый вид и может использовать индексы по (user_id, start_time) и (project_id, start_time).
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TimeRange {
+
+    private static final Timestamp MIN = Timestamp.valueOf("1970-01-01 00:00:00");
+    private static final Timestamp MAX = Timestamp.valueOf("9999-12-31 23:59:59");
+
+    private final Timestamp from;
+    private final Timestamp to;
+
+//    Если начало интервала позже конца генерируется исключение
+    public static TimeRange of(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !to.isAfter(from))
+            throw new WrongDateOrderException("Range start should be before range end");
+        return new TimeRange(from == null ? MIN : Timestamp.valueOf(from), to == null ? MAX : Timestamp.valueOf(to));
+    }
+}
@@ -2,7 +2,11 @@ package com.example.time_tracker.util.convertor;
 
 import com.example.time_tracker.model.Project;
 import com.example.time_tracker.model.dto.ProjectDto;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 import java.util.List;
 
@@ -11,4 +15,18 @@ public interface ProjectMapper {
     Project dtoToModel(ProjectDto dto);
     ProjectDto modelToDto(Project model);
     List<ProjectDto> toListDto(List<Project> models);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "records", ignore = true)
+    @Mapping(target = "users", ignore = true)
+    void updateModel(ProjectDto dto, @MappingTarget Project model);
+
+//    Частичное изменение: поля, не переданные клиентом, остаются прежними
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "records", ignore = true)
+    @Mapping(target = "users", ignore = true)
+    void patchModel(ProjectDto dto, @MappingTarget Project model);
 }
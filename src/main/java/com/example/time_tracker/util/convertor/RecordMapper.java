@@ -2,7 +2,13 @@ package com.example.time_tracker.util.convertor;
 
 import com.example.time_tracker.model.Record;
 import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.RecordExportDto;
+import com.example.time_tracker.repository.projection.RecordView;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 import java.util.List;
 
@@ -11,4 +17,24 @@ public interface RecordMapper {
     Record dtoToModel(RecordDto dto);
     RecordDto modelToDto(Record model);
     List<RecordDto> toListDto(List<Record> models);
+    RecordDto viewToDto(RecordView view);
+    List<RecordDto> viewsToListDto(List<RecordView> views);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "project", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void updateModel(RecordDto dto, @MappingTarget Record model);
+
+//    Частичное изменение: поля, не переданные клиентом, остаются прежними
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "project", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void patchModel(RecordDto dto, @MappingTarget Record model);
+
+    @Mapping(source = "user.id", target = "userId")
+    @Mapping(source = "project.id", target = "projectId")
+    RecordExportDto modelToExportDto(Record model);
 }
@@ -0,0 +1,15 @@
+package com.example.time_tracker.util.convertor;
+
+import com.example.time_tracker.model.dto.HoursReportDto;
+import com.example.time_tracker.repository.projection.HoursAggregate;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ReportMapper {
+    @Mapping(target = "detached", ignore = true)
+    HoursReportDto aggregateToDto(HoursAggregate aggregate);
+    List<HoursReportDto> toListDto(List<HoursAggregate> aggregates);
+}
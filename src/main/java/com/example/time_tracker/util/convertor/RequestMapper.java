@@ -2,9 +2,30 @@ package com.example.time_tracker.util.convertor;
 
 import com.example.time_tracker.model.User;
 import com.example.time_tracker.model.auth.RegistrationRequest;
+import org.mapstruct.BeanMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
 
 @Mapper(componentModel = "spring")
 public interface RequestMapper {
     User requestToModel(RegistrationRequest request);
+
+//    Пароль не копируется, его хэш выставляет сервис
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "records", ignore = true)
+    @Mapping(target = "projects", ignore = true)
+    void updateModel(RegistrationRequest request, @MappingTarget User model);
+
+//    Частичное изменение: поля, не переданные клиентом, остаются прежними
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "password", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "records", ignore = true)
+    @Mapping(target = "projects", ignore = true)
+    void patchModel(RegistrationRequest request, @MappingTarget User model);
 }
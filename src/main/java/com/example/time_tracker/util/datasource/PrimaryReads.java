@@ -0,0 +1,45 @@
+package com.example.time_tracker.util.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/*
+Чтение с основной базы для данных, которые не могут отставать от последних изменений:
+загрузка кэшей, проверки прав и владения.
+Внутри транзакции только на чтение соединение выдает реплика, вне транзакций методы репозиториев
+сами открывают транзакцию только на чтение, поэтому в обоих случаях чтение выполняется в отдельной
+новой транзакции без readOnly, которая получает соединение основной базы.
+Внутри изменяющей транзакции запрос и так идет в основную базу и выполняется как есть,
+в том числе видит несохраненные изменения текущей транзакции.
+Без реплик все соединения выдает основная база, и чтение всегда выполняется как есть.
+ */
+@Component
+public class PrimaryReads {
+
+    private final TransactionTemplate transactionTemplate;
+    private final boolean replicated;
+
+    public PrimaryReads(PlatformTransactionManager transactionManager, boolean replicated) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.replicated = replicated;
+    }
+
+    @Autowired
+    public PrimaryReads(PlatformTransactionManager transactionManager, ReplicaDataSource replicaDataSource) {
+        this(transactionManager, replicaDataSource.hasReplicas());
+    }
+
+    public <T> T read(Supplier<T> query) {
+        if (replicated && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()))
+            return transactionTemplate.execute(status -> query.get());
+        return query.get();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.time_tracker.util.datasource;
+
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/*
+Запрет заполнения кэша второго уровня и кэша запросов из реплик.
+Транзакция только на чтение может получить от отстающей реплики старые данные. Если их положить
+в общий кэш, они будут отдаваться всем и после того, как реплика догонит основную базу.
+Поэтому при наличии реплик сессия новой транзакции только на чтение получает CacheStoreMode.BYPASS
+(в Hibernate это CacheMode.GET): кэш читается, но заполняется только транзакциями основной базы.
+Режим задается свойством сессии, а не setCacheMode, потому что find и запросы берут режим из свойств.
+Слушатель подключается ко всем менеджерам транзакций автоконфигурацией Spring Boot.
+Свойство остается у сессии до ее закрытия, это безопасно потому, что при spring.jpa.open-in-view=false
+каждая транзакция получает свою сессию.
+ */
+@Component
+public class ReplicaCacheMode implements TransactionExecutionListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean replicated;
+
+    public ReplicaCacheMode(EntityManagerFactory entityManagerFactory, boolean replicated) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.replicated = replicated;
+    }
+
+    @Autowired
+    public ReplicaCacheMode(EntityManagerFactory entityManagerFactory, ReplicaDataSource replicaDataSource) {
+        this(entityManagerFactory, replicaDataSource.hasReplicas());
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (!replicated || beginFailure != null || !transaction.isNewTransaction() || !transaction.isReadOnly())
+            return;
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        if (entityManager != null)
+            entityManager.setProperty(AvailableSettings.JAKARTA_SHARED_CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.time_tracker.util.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/*
+Источник соединений для транзакций только на чтение.
+Реплики выбираются по кругу. Если реплика не выдала соединение, она считается недоступной
+в течение retryNanos и пропускается, соединение берется у следующей. Когда недоступны все реплики,
+соединение выдает основной источник, поэтому чтение продолжает работать без реплик.
+Время, до которого реплика пропускается, хранится в AtomicLongArray, выбор реплики не блокирует потоки.
+Начало отсчета System.nanoTime произвольно и может быть отрицательным, поэтому при создании
+это время равно текущему моменту, а не нулю, иначе все реплики сразу считались бы недоступными.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long retryNanos;
+    private final LongSupplier clock;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLongArray downUntil;
+
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas, long retryNanos, LongSupplier clock) {
+        if (retryNanos < 0)
+            throw new IllegalArgumentException("Retry interval should not be negative");
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.retryNanos = retryNanos;
+        this.clock = clock;
+        this.downUntil = new AtomicLongArray(this.replicas.size());
+        long now = clock.getAsLong();
+        for (int i = 0; i < this.replicas.size(); i++)
+            downUntil.set(i, now);
+    }
+
+    public ReplicaDataSource(DataSource primary, List<DataSource> replicas, long retryNanos) {
+        this(primary, replicas, retryNanos, System::nanoTime);
+    }
+
+//    Есть ли реплики, без них все соединения выдает основной источник
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+//    Обход реплик начиная со следующей по кругу, недоступные пропускаются до истечения интервала
+    private Connection connect(ConnectionSource source) throws SQLException {
+        int size = replicas.size();
+        if (size > 0) {
+            int start = Math.floorMod(next.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % size;
+                long now = clock.getAsLong();
+                if (now - downUntil.get(index) < 0)
+                    continue;
+                try {
+                    return source.get(replicas.get(index));
+                } catch (SQLException e) {
+                    downUntil.set(index, now + retryNanos);
+                    log.warn("Replica {} is unavailable, skipping it for {} ms", index, retryNanos / 1_000_000, e);
+                }
+            }
+        }
+        return source.get(primary);
+    }
+
+//    Закрывает пулы реплик, основной источник закрывается его владельцем
+    @Override
+    public void close() throws IOException {
+        for (DataSource replica : replicas)
+            if (replica instanceof Closeable closeable)
+                closeable.close();
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.time_tracker.util.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException() {
+        super();
+    }
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+    public InvalidCursorException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.time_tracker.util.exception;
+
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException() {
+        super();
+    }
+    public InvalidTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+    public InvalidTokenException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.time_tracker.util.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException() {
+        super();
+    }
+    public PreconditionFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+    public PreconditionFailedException(Throwable cause) {
+        super(cause);
+    }
+}
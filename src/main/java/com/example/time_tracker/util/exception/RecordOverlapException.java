@@ -0,0 +1,16 @@
+package com.example.time_tracker.util.exception;
+
+public class RecordOverlapException extends RuntimeException {
+    public RecordOverlapException() {
+        super();
+    }
+    public RecordOverlapException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public RecordOverlapException(String message) {
+        super(message);
+    }
+    public RecordOverlapException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.time_tracker.util.exception;
+
+public class TimerStateException extends RuntimeException {
+    public TimerStateException() {
+        super();
+    }
+    public TimerStateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public TimerStateException(String message) {
+        super(message);
+    }
+    public TimerStateException(Throwable cause) {
+        super(cause);
+    }
+}
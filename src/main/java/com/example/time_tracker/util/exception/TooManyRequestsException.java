@@ -0,0 +1,16 @@
+package com.example.time_tracker.util.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException() {
+        super();
+    }
+    public TooManyRequestsException(String message, Throwable cause) {
+        super(message, cause);
+    }
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+    public TooManyRequestsException(Throwable cause) {
+        super(cause);
+    }
+}
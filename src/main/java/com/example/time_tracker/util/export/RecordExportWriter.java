@@ -0,0 +1,112 @@
+package com.example.time_tracker.util.export;
+
+import com.example.time_tracker.model.dto.RecordExportDto;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/*
+Построчная запись выгружаемых записей в поток ответа.
+Ничего не накапливает в памяти: каждая строка сразу уходит в буфер потока.
+Даты форматируются так же, как в остальном API.
+ */
+public abstract class RecordExportWriter implements Closeable {
+
+    public static RecordExportWriter of(ExportFormat format, OutputStream out, ObjectMapper objectMapper) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonWriter(out, objectMapper);
+            case CSV -> new CsvWriter(out, objectMapper);
+        };
+    }
+
+    public abstract void write(RecordExportDto record) throws IOException;
+
+//    Каждая запись - отдельный JSON объект на своей строке
+    private static class NdjsonWriter extends RecordExportWriter {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+
+        private NdjsonWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setRootValueSeparator(null);
+            this.writer = objectMapper.writerFor(RecordExportDto.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(RecordExportDto record) throws IOException {
+            writer.writeValue(generator, record);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+//    CSV с заголовком, описание экранируется по RFC 4180
+    private static class CsvWriter extends RecordExportWriter {
+
+        private static final String HEADER = "id,user_id,project_id,description,start_time,end_time";
+
+        private final Writer writer;
+        private final DateTimeFormatter formatter;
+
+        private CsvWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                    .withZone(ZoneId.of(objectMapper.getSerializationConfig().getTimeZone().getID()));
+            writer.write(HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(RecordExportDto record) throws IOException {
+            writer.write(String.valueOf(record.getId()));
+            writer.write(',');
+            writer.write(record.getUserId() == null ? "" : record.getUserId().toString());
+            writer.write(',');
+            writer.write(record.getProjectId() == null ? "" : record.getProjectId().toString());
+            writer.write(',');
+            writer.write(escape(record.getDescription()));
+            writer.write(',');
+            writer.write(format(record.getStartTime()));
+            writer.write(',');
+            writer.write(format(record.getEndTime()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+
+        private String format(Date date) {
+            return date == null ? "" : formatter.format(date.toInstant());
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.time_tracker.util.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+
+/*
+Генератор Hibernate для полей с аннотацией TimeOrderedId.
+Номер узла читается из настройки time_tracker.id.node,
+у каждого экземпляра приложения он должен быть своим.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    public static final String NODE_SETTING = "time_tracker.id.node";
+
+    private final TimeOrderedIds ids;
+
+    public TimeOrderedIdGenerator(TimeOrderedId config, Member member, CustomIdGeneratorCreationContext context) {
+        int node = context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSetting(NODE_SETTING, StandardConverters.INTEGER, 0);
+        this.ids = TimeOrderedIds.forNode(node);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return ids.next();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.time_tracker.util.id;
+
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/*
+Источник 64-битных идентификаторов, упорядоченных по времени.
+Идентификатор состоит из 41 бита миллисекунд от EPOCH, 10 бит номера узла
+и 12 бит счетчика внутри миллисекунды, старший бит всегда 0.
+Одного узла хватает на 4096 идентификаторов в миллисекунду,
+при переполнении счетчика генерация ждет следующей миллисекунды.
+Если часы ушли назад, используется последнее выданное время,
+поэтому идентификаторы одного узла строго возрастают.
+ */
+public final class TimeOrderedIds {
+
+    public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final ConcurrentMap<Integer, TimeOrderedIds> NODES = new ConcurrentHashMap<>();
+
+    private final long node;
+    private final LongSupplier clock;
+    private long lastTime = -1;
+    private long sequence;
+
+    TimeOrderedIds(int node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE)
+            throw new IllegalArgumentException("Node id should be between 0 and " + MAX_NODE + ", got: " + node);
+        this.node = node;
+        this.clock = clock;
+    }
+
+//    Общий источник для узла, чтобы все сущности одного экземпляра приложения делили счетчик
+    public static TimeOrderedIds forNode(int node) {
+        return NODES.computeIfAbsent(node, n -> new TimeOrderedIds(n, System::currentTimeMillis));
+    }
+
+    public synchronized long next() {
+        long time = Math.max(clock.getAsLong() - EPOCH, lastTime);
+        if (time == lastTime) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0)
+                time = nextMillis();
+        } else {
+            sequence = 0;
+        }
+        lastTime = time;
+        return (time << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+//    Ожидание следующей миллисекунды после переполнения счетчика.
+//    Если часы отстают от последнего выданного времени, следующая миллисекунда занимается сразу
+    private long nextMillis() {
+        long time = clock.getAsLong() - EPOCH;
+        if (time < lastTime)
+            return lastTime + 1;
+        while (time <= lastTime) {
+            Thread.onSpinWait();
+            time = clock.getAsLong() - EPOCH;
+        }
+        return time;
+    }
+
+//    Момент создания, закодированный в идентификаторе
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.time_tracker.util.overlap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/*
+Индекс полуинтервалов [start, end) записей одного пользователя.
+Интервалы хранятся отсортированными по началу, дополнительно запоминается
+максимальная длительность. Интервалы, пересекающиеся с [start, end),
+начинаются в промежутке (start - maxDuration, end), поэтому поиск
+просматривает только этот участок: O(log n + k).
+Максимальная длительность при удалении не уменьшается, это лишь немного
+расширяет участок просмотра.
+Методы синхронизированы, поэтому индекс можно передавать между потоками.
+ */
+public class IntervalIndex {
+
+    private static final Comparator<Interval> BY_START =
+            Comparator.comparingLong(Interval::start).thenComparingLong(Interval::id);
+
+    private final NavigableSet<Interval> byStart = new TreeSet<>(BY_START);
+    private final Map<Long, Interval> byId = new HashMap<>();
+    private long maxDuration;
+
+    public static IntervalIndex of(Iterable<Interval> intervals) {
+        IntervalIndex index = new IntervalIndex();
+        intervals.forEach(index::put);
+        return index;
+    }
+
+//    Добавление интервала, старый интервал с тем же id заменяется
+    public synchronized void put(Interval interval) {
+        remove(interval.id());
+        byStart.add(interval);
+        byId.put(interval.id(), interval);
+        maxDuration = Math.max(maxDuration, interval.end() - interval.start());
+    }
+
+    public synchronized void remove(long id) {
+        Interval removed = byId.remove(id);
+        if (removed != null) {
+            byStart.remove(removed);
+        }
+    }
+
+    public synchronized boolean contains(long id) {
+        return byId.containsKey(id);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+//    Интервалы, пересекающиеся с [start, end), кроме интервала с id exceptId, в порядке начала
+    public synchronized List<Interval> overlapping(long start, long end, Long exceptId) {
+        List<Interval> result = new ArrayList<>();
+        Interval from = new Interval(Long.MIN_VALUE, start - maxDuration, 0);
+        Interval to = new Interval(Long.MIN_VALUE, end, 0);
+        for (Interval interval : byStart.subSet(from, false, to, false)) {
+            if (interval.end() > start && !Long.valueOf(interval.id()).equals(exceptId)) {
+                result.add(interval);
+            }
+        }
+        return result;
+    }
+
+    /*
+    Все пары пересекающихся интервалов заметающей прямой.
+    Интервалы перебираются по возрастанию начала, открытые интервалы хранятся
+    в очереди по концу: закончившиеся до начала текущего удаляются,
+    с остальными текущий пересекается. O(n log n + k), где k - число пар.
+     */
+    public synchronized List<Overlap> overlaps() {
+        List<Overlap> result = new ArrayList<>();
+        PriorityQueue<Interval> open = new PriorityQueue<>(Comparator.comparingLong(Interval::end));
+        for (Interval interval : byStart) {
+            while (!open.isEmpty() && open.peek().end() <= interval.start()) {
+                open.poll();
+            }
+            for (Interval other : open) {
+                result.add(new Overlap(other, interval,
+                        interval.start(), Math.min(other.end(), interval.end())));
+            }
+            open.add(interval);
+        }
+        return result;
+    }
+
+//    Интервал записи в миллисекундах эпохи
+    public record Interval(long id, long start, long end) {
+    }
+
+//    Пересечение двух интервалов на отрезке [start, end)
+    public record Overlap(Interval first, Interval second, long start, long end) {
+    }
+}
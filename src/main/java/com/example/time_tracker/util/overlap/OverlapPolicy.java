@@ -0,0 +1,11 @@
+package com.example.time_tracker.util.overlap;
+
+/*
+Поведение при пересечении новой или измененной записи с другими записями пользователя:
+REJECT - запись отклоняется,
+WARN - запись сохраняется как есть, пересечение попадает в лог,
+TRIM - запись обрезается по границам соседних записей, если от нее что-то остается.
+ */
+public enum OverlapPolicy {
+    REJECT, WARN, TRIM
+}
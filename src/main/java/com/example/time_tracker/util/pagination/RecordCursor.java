@@ -0,0 +1,63 @@
+package com.example.time_tracker.util.pagination;
+
+import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.util.exception.InvalidCursorException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/*
+Курсор постраничной выборки записей по ключу (start_time, id).
+Записи отдаются от новых к старым, поэтому следующая страница
+начинается со строк, у которых пара (start_time, id) строго меньше курсора.
+Наружу курсор передается в виде непрозрачной base64url строки.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RecordCursor {
+
+//    Курсор первой страницы, больше любой существующей записи
+    public static final RecordCursor FIRST =
+            new RecordCursor(Timestamp.valueOf("9999-12-31 23:59:59"), Long.MAX_VALUE);
+
+    private final Timestamp startTime;
+    private final Long id;
+
+//    Курсор, указывающий на запись, после которой начинается следующая страница
+    public static RecordCursor after(RecordDto record) {
+        Date startTime = record.getStartTime();
+        Timestamp timestamp = startTime instanceof Timestamp t ? t : new Timestamp(startTime.getTime());
+        return new RecordCursor(timestamp, record.getId());
+    }
+
+//    Разбор курсора из запроса, пустой курсор означает первую страницу
+    public static RecordCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                throw new InvalidCursorException("Cursor is malformed");
+            }
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new RecordCursor(Timestamp.from(instant), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | ArithmeticException | DateTimeException ex) {
+            throw new InvalidCursorException("Cursor is malformed", ex);
+        }
+    }
+
+//    Кодирование курсора, наносекунды сохраняются чтобы не потерять строки с одинаковой секундой
+    public String encode() {
+        Instant instant = startTime.toInstant();
+        String raw = instant.getEpochSecond() + ":" + instant.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.time_tracker.util.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/*
+Ограничитель частоты по ключу, эквивалентный ведру токенов (алгоритм GCRA).
+Для ведра хранится одно число - теоретическое время прихода следующего запроса (TAT).
+Запрос разрешен, если после сдвига TAT на интервал между токенами он опережает
+текущее время не больше, чем на емкость ведра, умноженную на интервал.
+Ключи распределяются по фиксированному числу полос, каждая полоса - отдельное ведро
+в AtomicLongArray, обновляемое через compareAndSet без блокировок.
+Память не растет с числом ключей; ключи, попавшие в одну полосу, делят общее ведро,
+что может только раньше отказать, но не пропустить лишние запросы.
+ */
+public class TokenBucketLimiter {
+
+    private final AtomicLongArray tats;
+    private final long interval;
+    private final long burstWindow;
+    private final LongSupplier clock;
+    private final long origin;
+
+    public TokenBucketLimiter(int stripes, int capacity, long refillNanos, LongSupplier clock) {
+        if (stripes <= 0 || capacity <= 0 || refillNanos <= 0)
+            throw new IllegalArgumentException("Stripes, capacity and refill period should be positive");
+        this.tats = new AtomicLongArray(stripes);
+        this.interval = refillNanos / capacity;
+        this.burstWindow = interval * capacity;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+    }
+
+//    Ведро на capacity запросов, полностью восполняемое за refillNanos наносекунд
+    public TokenBucketLimiter(int stripes, int capacity, long refillNanos) {
+        this(stripes, capacity, refillNanos, System::nanoTime);
+    }
+
+//    Забирает токен из ведра ключа, false если ведро пусто
+    public boolean tryAcquire(Object key) {
+        int stripe = stripe(key);
+        while (true) {
+            long now = clock.getAsLong() - origin;
+            long tat = tats.get(stripe);
+            long next = Math.max(tat, now) + interval;
+            if (next - now > burstWindow)
+                return false;
+            if (tats.compareAndSet(stripe, tat, next))
+                return true;
+        }
+    }
+
+    private int stripe(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash * 0x9E3779B9, tats.length());
+    }
+}
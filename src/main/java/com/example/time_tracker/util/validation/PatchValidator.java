@@ -0,0 +1,41 @@
+package com.example.time_tracker.util.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.stereotype.Component;
+
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/*
+Проверка тела PATCH запроса.
+В частичном изменении отсутствующее поле означает "не менять", поэтому
+ограничения проверяются только для переданных полей, а @NotBlank и подобные
+не срабатывают на пропущенных. Ограничения уровня класса не проверяются.
+Тело PATCH читается в обычный DTO, где пропущенное поле и явный null неразличимы,
+поэтому null тоже означает "не менять" и очистить необязательное поле (например,
+описание записи) через PATCH нельзя - для этого используется PUT.
+ */
+@Component
+@RequiredArgsConstructor
+public class PatchValidator {
+
+    private final Validator validator;
+
+    public void validate(Object patch) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(patch);
+        String errors = Arrays.stream(wrapper.getPropertyDescriptors())
+                .map(PropertyDescriptor::getName)
+                .filter(name -> wrapper.isWritableProperty(name) && wrapper.getPropertyValue(name) != null)
+                .flatMap(name -> validator.validateProperty(patch, name).stream())
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining(", "));
+        if (!errors.isEmpty())
+            throw new ValidationException(errors);
+    }
+}
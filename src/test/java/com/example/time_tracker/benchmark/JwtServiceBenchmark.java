@@ -0,0 +1,67 @@
+package com.example.time_tracker.benchmark;
+
+import com.example.time_tracker.service.auth.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Стоимость проверки токена на один запрос.
+perRequestBefore повторяет прежний путь JwtAuthFilter: имя пользователя извлекается
+из токена, затем при проверке валидности токен разбирается еще два раза,
+и каждый разбор заново декодирует ключ и строит парсер.
+perRequestAfter - один вызов JwtService.verify с ключом и парсером, созданными при старте.
+Запуск: main этого класса из IDE или через exec с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SIGNING_KEY = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(SIGNING_KEY);
+        token = jwtService.generateToken(new User("John Smith", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @Benchmark
+    public boolean perRequestBefore() {
+        String username = parse(token).getSubject();
+        return username.equals(parse(token).getSubject()) && !parse(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public String perRequestAfter() {
+        return jwtService.verify(token).getSubject();
+    }
+
+    private static Claims parse(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SIGNING_KEY));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.time_tracker.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+public class CacheConfigTests {
+
+    private final HibernatePropertiesCustomizer customizer =
+            new CacheConfig().hibernateCacheManagerCustomizer("hibernate-jcache.conf");
+
+//    Закрытие менеджера одного контекста не закрывает кэши второго
+    @Test
+    public void testContextsDoNotShareCacheManager() {
+        CacheManager first = cacheManager();
+        CacheManager second = cacheManager();
+        try {
+            assertNotSame(first, second);
+            first.close();
+
+            Cache<Object, Object> users = second.getCache("users");
+            assertNotNull(users);
+            users.put(1L, "user");
+            assertEquals("user", users.get(1L));
+        } finally {
+            second.close();
+        }
+    }
+
+    private CacheManager cacheManager() {
+        Map<String, Object> properties = new HashMap<>();
+        customizer.customize(properties);
+        return (CacheManager) properties.get(ConfigSettings.CACHE_MANAGER);
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.time_tracker.controller;
 
+import com.example.time_tracker.model.auth.AuthRequest;
+import com.example.time_tracker.model.auth.AuthResponse;
+import com.example.time_tracker.model.auth.RefreshRequest;
 import com.example.time_tracker.model.auth.RegistrationRequest;
 import com.example.time_tracker.model.dto.ProjectDto;
 import com.example.time_tracker.model.dto.UserDto;
 import com.example.time_tracker.service.ProjectService;
 import com.example.time_tracker.service.auth.AuthService;
+import com.example.time_tracker.util.exception.InvalidTokenException;
+import com.example.time_tracker.util.exception.TooManyRequestsException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -18,6 +23,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -68,4 +74,51 @@ public class AuthControllerTests {
                 .andDo(print());
         Mockito.verify(service, times(1)).create(request);
     }
+
+    @Test
+    public void testRefreshShouldReturn200OK() throws Exception {
+        RefreshRequest request = new RefreshRequest("1.1.secret");
+
+        Mockito.when(service.refresh(request)).thenReturn(new AuthResponse("token", "2.1.secret"));
+
+        mockMvc.perform(post("/api/auth/refresh").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("token"))
+                .andExpect(jsonPath("$.refreshToken").value("2.1.secret"))
+                .andDo(print());
+    }
+
+    @Test
+    public void testRefreshShouldReturn401Unauthorized() throws Exception {
+        RefreshRequest request = new RefreshRequest("1.1.secret");
+
+        Mockito.when(service.refresh(request)).thenThrow(new InvalidTokenException("Refresh token has been revoked"));
+
+        mockMvc.perform(post("/api/auth/refresh").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized())
+                .andDo(print());
+    }
+
+    @Test
+    public void testRefreshShouldReturn400BadRequest() throws Exception {
+        mockMvc.perform(post("/api/auth/refresh").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(new RefreshRequest(""))))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+
+    @Test
+    public void testSignInShouldReturn429TooManyRequests() throws Exception {
+        AuthRequest request = new AuthRequest("John Smith", "password");
+
+        Mockito.when(service.authenticateAndGetToken(request, "127.0.0.1"))
+                .thenThrow(new TooManyRequestsException("Too many sign-in attempts, try again later"));
+
+        mockMvc.perform(post("/api/auth/signin").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andDo(print());
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.time_tracker.controller;
+
+import com.example.time_tracker.model.auth.AuthRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+Ограничение попыток входа через настоящий сервер и всю цепочку фильтров.
+Запросы приходят с локального адреса, который Tomcat считает доверенным прокси,
+поэтому IP клиента берется из заголовка X-Forwarded-For.
+Каждый отказ учитывается в счетчике time_tracker.auth.login.failures со своей причиной.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"time-tracker.login.free-attempts=1", "time-tracker.login.backoff-base=60000"})
+public class AuthThrottleTests {
+
+    private static final long USER_ID = -9401L;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void createUser() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, roles) "
+                + "VALUES (?, 'throttle-test', ?, 'throttle-test@example.com', 'ROLE_USER')",
+                USER_ID, passwordEncoder.encode("password"));
+    }
+
+    @AfterEach
+    public void deleteUser() {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+    }
+
+    @Test
+    public void testFailedSignInsDelayOnlyTheirClient() {
+        double badCredentials = failures("bad_credentials");
+        double throttled = failures("throttled");
+
+        assertEquals(HttpStatus.BAD_REQUEST, signIn("wrong-password", "203.0.113.7"));
+        assertEquals(HttpStatus.BAD_REQUEST, signIn("wrong-password", "203.0.113.7"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, signIn("password", "203.0.113.7"));
+
+        assertEquals(HttpStatus.OK, signIn("password", "203.0.113.8"));
+
+        assertEquals(badCredentials + 2, failures("bad_credentials"));
+        assertEquals(throttled + 1, failures("throttled"));
+    }
+
+    private double failures(String reason) {
+        Counter counter = meterRegistry.find("time_tracker.auth.login.failures").tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private HttpStatusCode signIn(String password, String clientIp) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", clientIp);
+        return restTemplate.postForEntity("/api/auth/signin",
+                new HttpEntity<>(new AuthRequest("throttle-test", password), headers), String.class).getStatusCode();
+    }
+}
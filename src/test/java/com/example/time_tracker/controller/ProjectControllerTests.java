@@ -3,6 +3,7 @@ package com.example.time_tracker.controller;
 import com.example.time_tracker.model.dto.ProjectDto;
 import com.example.time_tracker.service.ProjectService;
 import com.example.time_tracker.util.exception.ModelNotFoundException;
+import com.example.time_tracker.util.exception.PreconditionFailedException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -107,6 +109,20 @@ public class ProjectControllerTests {
                 .andDo(print());
     }
 
+    @Test
+    public void testGetShouldSerializeIdAsString() throws Exception {
+//        Больше 2^53, число в JSON потеряло бы точность в JavaScript
+        Long projectId = 370218797191135233L;
+
+        Mockito.when(service.findById(projectId))
+                .thenReturn(ProjectDto.builder().id(projectId).name("Project").version(0L).build());
+
+        mockMvc.perform(get("/api/projects/" + projectId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("370218797191135233"))
+                .andDo(print());
+    }
+
     @Test
     public void testUpdateShouldReturn404NotFound() throws Exception {
         Long projectId = 123L;
@@ -114,7 +130,7 @@ public class ProjectControllerTests {
 
         ProjectDto projectDto = ProjectDto.builder().id(projectId).name("Project").build();
 
-        Mockito.when(service.updateById(projectId, projectDto)).thenThrow(ModelNotFoundException.class);
+        Mockito.when(service.updateById(projectId, projectDto, null)).thenThrow(ModelNotFoundException.class);
 
         String requestBody = objectMapper.writeValueAsString(projectDto);
 
@@ -131,7 +147,7 @@ public class ProjectControllerTests {
 
         ProjectDto projectDto = ProjectDto.builder().id(projectId).name(name).build();
 
-        Mockito.when(service.updateById(projectId, projectDto)).thenReturn(projectDto);
+        Mockito.when(service.updateById(projectId, projectDto, null)).thenReturn(projectDto);
 
         String requestBody = objectMapper.writeValueAsString(projectDto);
 
@@ -141,6 +157,56 @@ public class ProjectControllerTests {
                 .andDo(print());
     }
 
+    @Test
+    public void testUpdateWithStaleIfMatchShouldReturn412PreconditionFailed() throws Exception {
+        Long projectId = 123L;
+        String requestURI = "/api/projects/" + projectId;
+
+        ProjectDto projectDto = ProjectDto.builder().id(projectId).name("Project").build();
+
+        Mockito.when(service.updateById(projectId, projectDto, 1L)).thenThrow(PreconditionFailedException.class);
+
+        String requestBody = objectMapper.writeValueAsString(projectDto);
+
+        mockMvc.perform(put(requestURI).contentType("application/json").content(requestBody)
+                        .header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isPreconditionFailed())
+                .andDo(print());
+    }
+
+    @Test
+    public void testUpdateWithMalformedIfMatchShouldReturn412PreconditionFailed() throws Exception {
+        ProjectDto projectDto = ProjectDto.builder().name("Project").build();
+
+        String requestBody = objectMapper.writeValueAsString(projectDto);
+
+        mockMvc.perform(put("/api/projects/123").contentType("application/json").content(requestBody)
+                        .header(HttpHeaders.IF_MATCH, "first"))
+                .andExpect(status().isPreconditionFailed())
+                .andDo(print());
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    public void testPatchShouldReturn200OKWithETag() throws Exception {
+        Long projectId = 123L;
+        String requestURI = "/api/projects/" + projectId;
+
+        ProjectDto patch = ProjectDto.builder().name("Renamed").build();
+        ProjectDto projectDto = ProjectDto.builder().id(projectId).name("Renamed").version(3L).build();
+
+        Mockito.when(service.patchById(projectId, patch, 2L)).thenReturn(projectDto);
+
+        String requestBody = objectMapper.writeValueAsString(patch);
+
+        mockMvc.perform(patch(requestURI).contentType("application/json").content(requestBody)
+                        .header(HttpHeaders.IF_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.name").value("Renamed"))
+                .andDo(print());
+    }
+
     @Test
     public void testDeleteShouldReturn404NotFound() throws Exception {
         Long projectId = 123L;
@@ -0,0 +1,51 @@
+package com.example.time_tracker.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Сбор метрик Prometheus по отдельной учетной записи через настоящий сервер.
+Учетная запись сборщика открывает только /actuator/prometheus, остальные конечные точки actuator
+по-прежнему требуют JWT администратора.
+Экспорт метрик в тестах по умолчанию выключен, поэтому он включается через @AutoConfigureObservability.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"time-tracker.metrics.scrape-username=prometheus",
+                "time-tracker.metrics.scrape-password={noop}scrape-secret"})
+public class PrometheusScrapeTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void testScrapeWithCredentials() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth("prometheus", "scrape-secret")
+                .getForEntity("/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("time_tracker_auth_filter_seconds_count"));
+    }
+
+    @Test
+    public void testScrapeWithoutCredentialsIsRejected() {
+        assertEquals(HttpStatus.UNAUTHORIZED, restTemplate
+                .getForEntity("/actuator/prometheus", String.class).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, restTemplate.withBasicAuth("prometheus", "wrong-secret")
+                .getForEntity("/actuator/prometheus", String.class).getStatusCode());
+    }
+
+    @Test
+    public void testScrapeCredentialsDoNotOpenOtherEndpoints() {
+        assertEquals(HttpStatus.FORBIDDEN, restTemplate.withBasicAuth("prometheus", "scrape-secret")
+                .getForEntity("/actuator/metrics", String.class).getStatusCode());
+    }
+}
@@ -1,8 +1,15 @@
 package com.example.time_tracker.controller;
 
+import com.example.time_tracker.model.dto.RecordBatchItemDto;
+import com.example.time_tracker.model.dto.RecordBatchResultDto;
 import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.RecordOverlapDto;
+import com.example.time_tracker.model.dto.RecordPageDto;
 import com.example.time_tracker.service.RecordService;
+import com.example.time_tracker.util.export.ExportFormat;
+import com.example.time_tracker.util.exception.InvalidCursorException;
 import com.example.time_tracker.util.exception.ModelNotFoundException;
+import com.example.time_tracker.util.exception.RecordOverlapException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -12,10 +19,17 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -53,7 +67,7 @@ public class RecordControllerTests {
         RecordDto recordDto = RecordDto.builder().id(1L)
                 .description("Description").startTime(new Date()).endTime(new Date()).build();
 
-        Mockito.doReturn(recordDto).when(service.createByProjectId(1L, recordDto));
+        Mockito.when(service.createByProjectId(Mockito.eq(1L), Mockito.any(RecordDto.class))).thenReturn(recordDto);
 
         String requestBody = objectMapper.writeValueAsString(recordDto);
 
@@ -61,7 +75,62 @@ public class RecordControllerTests {
                 .content(requestBody))
                 .andExpect(status().isCreated())
                 .andDo(print());
-        Mockito.verify(service, times(1)).createByProjectId(1L, recordDto);
+        Mockito.verify(service, times(1)).createByProjectId(Mockito.eq(1L), Mockito.any(RecordDto.class));
+    }
+
+    @Test
+    public void testBatchShouldReturn200OK() throws Exception {
+        RecordDto recordDto = RecordDto.builder()
+                .description("Description").startTime(new Date()).endTime(new Date()).build();
+        List<RecordBatchItemDto> items = List.of(
+                RecordBatchItemDto.builder().projectId(1L).record(recordDto).build(),
+                RecordBatchItemDto.builder().projectId(2L).record(recordDto).build());
+        List<RecordBatchResultDto> results = List.of(
+                RecordBatchResultDto.builder().index(0).record(RecordDto.builder().id(10L)
+                        .description("Description").build()).build(),
+                RecordBatchResultDto.builder().index(1)
+                        .errors(List.of("Current user has not project with id: 2")).build());
+
+        Mockito.when(service.createBatch(any())).thenReturn(results);
+
+        mockMvc.perform(post("/api/user/records/batch").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].record.id").value("10"))
+                .andExpect(jsonPath("$[0].errors").doesNotExist())
+                .andExpect(jsonPath("$[1].record").doesNotExist())
+                .andExpect(jsonPath("$[1].errors[0]").value("Current user has not project with id: 2"))
+                .andDo(print());
+        Mockito.verify(service, times(1)).createBatch(any());
+    }
+
+    @Test
+    public void testAddShouldReturn409ConflictOnOverlap() throws Exception {
+        RecordDto recordDto = RecordDto.builder()
+                .description("Description").startTime(new Date(0)).endTime(new Date(1000)).build();
+
+        Mockito.when(service.createByProjectId(eq(1L), any()))
+                .thenThrow(new RecordOverlapException("Record overlaps records with ids: [7]"));
+
+        mockMvc.perform(post("/api/user/records/new/project/1").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(recordDto)))
+                .andExpect(status().isConflict())
+                .andDo(print());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testOverlapsShouldReturn200OK() throws Exception {
+        RecordOverlapDto overlap = RecordOverlapDto.builder()
+                .recordId(1L).overlappingRecordId(2L).start(new Date()).end(new Date()).build();
+
+        Mockito.when(service.findOverlapsByUserId(5L)).thenReturn(List.of(overlap));
+
+        mockMvc.perform(get("/api/admin/records/user/5/overlaps"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].recordId").value("1"))
+                .andExpect(jsonPath("$[0].overlappingRecordId").value("2"))
+                .andDo(print());
     }
 
     @Test
@@ -103,7 +172,7 @@ public class RecordControllerTests {
 
         List<RecordDto> list = List.of(recordDto1, recordDto2);
 
-        Mockito.when(service.findAll()).thenReturn(list);
+        Mockito.when(service.findAll(null, null)).thenReturn(list);
 
         mockMvc.perform(get("/api/user/records"))
                 .andExpect(status().isOk())
@@ -121,7 +190,8 @@ public class RecordControllerTests {
         RecordDto recordDto = RecordDto.builder().id(recordId)
                 .description("Description").startTime(new Date()).endTime(new Date()).build();
 
-        Mockito.when(service.updateById(recordId, recordDto)).thenThrow(ModelNotFoundException.class);
+        Mockito.when(service.updateById(Mockito.eq(recordId), Mockito.any(RecordDto.class), Mockito.isNull()))
+                .thenThrow(ModelNotFoundException.class);
 
         String requestBody = objectMapper.writeValueAsString(recordDto);
 
@@ -139,7 +209,8 @@ public class RecordControllerTests {
         RecordDto recordDto = RecordDto.builder().id(recordId)
                 .description(description).startTime(new Date()).endTime(new Date()).build();
 
-        Mockito.when(service.updateById(recordId, recordDto)).thenReturn(recordDto);
+        Mockito.when(service.updateById(Mockito.eq(recordId), Mockito.any(RecordDto.class), Mockito.isNull()))
+                .thenReturn(recordDto);
 
         String requestBody = objectMapper.writeValueAsString(recordDto);
 
@@ -171,4 +242,65 @@ public class RecordControllerTests {
                 .andExpect(status().isOk())
                 .andDo(print());
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testAdminPageShouldReturn200OK() throws Exception {
+        RecordDto recordDto = RecordDto.builder().id(1L)
+                .description("Description").startTime(new Date()).endTime(new Date()).build();
+        RecordPageDto page = RecordPageDto.builder().records(List.of(recordDto)).next("cursor").build();
+
+        Mockito.when(service.findAllGenerally(null, null, "previous", 10)).thenReturn(page);
+
+        mockMvc.perform(get("/api/admin/records").param("next", "previous").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.records[0].description").value(recordDto.getDescription()))
+                .andExpect(jsonPath("$.next").value("cursor"))
+                .andDo(print());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testAdminPageShouldReturn400BadRequest() throws Exception {
+        Mockito.when(service.findAllGenerally(null, null, "broken", 50)).thenThrow(InvalidCursorException.class);
+
+        mockMvc.perform(get("/api/admin/records").param("next", "broken"))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testExportShouldStreamCsv() throws Exception {
+        String csv = "id,user_id,project_id,description,start_time,end_time\n";
+        CountDownLatch requestReturned = new CountDownLatch(1);
+
+//        Поток выгрузки ждет завершения исходного запроса, чтобы не писать в ответ одновременно с фильтрами
+        Mockito.doAnswer(invocation -> {
+            requestReturned.await(5, TimeUnit.SECONDS);
+            invocation.getArgument(1, OutputStream.class).write(csv.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(service).exportAll(eq(ExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/admin/records/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        requestReturned.countDown();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"records.csv\""))
+                .andExpect(content().string(csv))
+                .andDo(print());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    public void testExportShouldReturn400BadRequest() throws Exception {
+        mockMvc.perform(get("/api/admin/records/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
 }
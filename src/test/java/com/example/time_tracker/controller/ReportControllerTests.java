@@ -0,0 +1,100 @@
+package com.example.time_tracker.controller;
+
+import com.example.time_tracker.model.dto.HoursReportDto;
+import com.example.time_tracker.service.ReportService;
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "ADMIN")
+public class ReportControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private ReportService service;
+
+    @Test
+    public void testHoursShouldReturn200OK() throws Exception {
+        LocalDate from = LocalDate.of(2024, 7, 1);
+        LocalDate to = LocalDate.of(2024, 7, 31);
+        HoursReportDto report = HoursReportDto.builder()
+                .projectId(1L).totalSeconds(10800L).recordCount(1L).detached(false).build();
+
+        Mockito.when(service.findHours(List.of("project"), from, to)).thenReturn(List.of(report));
+
+        mockMvc.perform(get("/api/admin/reports/hours")
+                        .param("groupBy", "project").param("from", "2024-07-01").param("to", "2024-07-31"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$[0].projectId").value("1"))
+                .andExpect(jsonPath("$[0].totalSeconds").value(10800))
+                .andExpect(jsonPath("$[0].userId").doesNotExist())
+                .andExpect(jsonPath("$[0].detached").value(false))
+                .andDo(print());
+    }
+
+    @Test
+    public void testHoursShouldMarkDetachedRows() throws Exception {
+        LocalDate from = LocalDate.of(2024, 7, 1);
+        LocalDate to = LocalDate.of(2024, 7, 31);
+        HoursReportDto report = HoursReportDto.builder()
+                .projectId(1L).totalSeconds(3600L).recordCount(1L).detached(true).build();
+
+        Mockito.when(service.findHours(List.of("user", "project"), from, to)).thenReturn(List.of(report));
+
+        mockMvc.perform(get("/api/admin/reports/hours")
+                        .param("groupBy", "user,project").param("from", "2024-07-01").param("to", "2024-07-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId").doesNotExist())
+                .andExpect(jsonPath("$[0].detached").value(true));
+    }
+
+    @Test
+    public void testHoursShouldReturn400BadRequest() throws Exception {
+        LocalDate from = LocalDate.of(2024, 7, 1);
+        LocalDate to = LocalDate.of(2024, 7, 31);
+
+        Mockito.when(service.findHours(List.of("week"), from, to)).thenThrow(ValidationException.class);
+
+        mockMvc.perform(get("/api/admin/reports/hours")
+                        .param("groupBy", "week").param("from", "2024-07-01").param("to", "2024-07-31"))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    public void testHoursShouldReturn403Forbidden() throws Exception {
+        mockMvc.perform(get("/api/admin/reports/hours").param("from", "2024-07-01").param("to", "2024-07-31"))
+                .andExpect(status().isForbidden())
+                .andDo(print());
+    }
+
+    @Test
+    public void testRebuildRollupShouldReturn200OK() throws Exception {
+        Mockito.when(service.rebuildRollup()).thenReturn(3);
+
+        mockMvc.perform(post("/api/admin/reports/rollup/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("3"))
+                .andDo(print());
+        Mockito.verify(service, Mockito.times(1)).rebuildRollup();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.time_tracker.controller;
+
+import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.TimerDto;
+import com.example.time_tracker.service.TimerService;
+import com.example.time_tracker.util.exception.TimerStateException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(roles = "USER")
+public class TimerControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @MockBean
+    private TimerService service;
+
+    @Test
+    public void testCurrentShouldReturn200OK() throws Exception {
+        TimerDto timerDto = TimerDto.builder().projectId(1L).description("Description").startTime(new Date()).build();
+
+        Mockito.when(service.current()).thenReturn(Optional.of(timerDto));
+
+        mockMvc.perform(get("/api/user/timer"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.projectId").value("1"))
+                .andExpect(jsonPath("$.description").value("Description"))
+                .andDo(print());
+    }
+
+    @Test
+    public void testCurrentShouldReturn204NoContent() throws Exception {
+        Mockito.when(service.current()).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/user/timer"))
+                .andExpect(status().isNoContent())
+                .andDo(print());
+    }
+
+    @Test
+    public void testStartShouldReturn201Created() throws Exception {
+        TimerDto timerDto = TimerDto.builder().projectId(1L).description("Description").build();
+
+        Mockito.when(service.start(any())).thenReturn(timerDto);
+
+        mockMvc.perform(post("/api/user/timer/start").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(timerDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.projectId").value("1"))
+                .andDo(print());
+    }
+
+    @Test
+    public void testStartShouldReturn400BadRequest() throws Exception {
+        mockMvc.perform(post("/api/user/timer/start").contentType("application/json")
+                        .content(objectMapper.writeValueAsString(TimerDto.builder().build())))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+
+    @Test
+    public void testStopShouldReturn201Created() throws Exception {
+        RecordDto recordDto = RecordDto.builder().id(1L).description("Description")
+                .startTime(new Date()).endTime(new Date()).build();
+
+        Mockito.when(service.stop()).thenReturn(recordDto);
+
+        mockMvc.perform(post("/api/user/timer/stop"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value("1"))
+                .andDo(print());
+    }
+
+    @Test
+    public void testStopShouldReturn409Conflict() throws Exception {
+        Mockito.when(service.stop()).thenThrow(new TimerStateException("Timer is not running"));
+
+        mockMvc.perform(post("/api/user/timer/stop"))
+                .andExpect(status().isConflict())
+                .andDo(print());
+    }
+}
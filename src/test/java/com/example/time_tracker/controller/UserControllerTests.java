@@ -1,6 +1,7 @@
 package com.example.time_tracker.controller;
 
 import com.example.time_tracker.model.auth.RegistrationRequest;
+import com.example.time_tracker.model.dto.IdListDto;
 import com.example.time_tracker.model.dto.UserDto;
 import com.example.time_tracker.service.UserService;
 import com.example.time_tracker.util.exception.ModelNotFoundException;
@@ -15,6 +16,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Set;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -91,7 +93,7 @@ public class UserControllerTests {
                 .username("Test").email("test@mail.com").password("password")
                 .passwordConfirm("password").role("ROLE_USER").build();
 
-        Mockito.when(service.updateById(userId, request)).thenThrow(ModelNotFoundException.class);
+        Mockito.when(service.updateById(userId, request, null)).thenThrow(ModelNotFoundException.class);
 
         String requestBody = objectMapper.writeValueAsString(request);
 
@@ -113,7 +115,7 @@ public class UserControllerTests {
         UserDto userDto = UserDto.builder().id(userId)
                 .username(username).email("tests@mail.com").role("ROLE_USER").build();
 
-        Mockito.when(service.updateById(userId, request)).thenReturn(userDto);
+        Mockito.when(service.updateById(userId, request, null)).thenReturn(userDto);
 
         String requestBody = objectMapper.writeValueAsString(request);
 
@@ -146,5 +148,40 @@ public class UserControllerTests {
                 .andExpect(status().isOk())
                 .andDo(print());
     }
-}
 
+    @Test
+    public void testCreateProjectUserRelationsShouldReturn200OK() throws Exception {
+        Long projectId = 1L;
+        String requestURI = "/api/projects/" + projectId + "/users";
+        String requestBody = objectMapper.writeValueAsString(IdListDto.builder().ids(Set.of(1L, 2L)).build());
+
+        mockMvc.perform(post(requestURI).contentType("application/json").content(requestBody))
+                .andExpect(status().isOk())
+                .andDo(print());
+
+        Mockito.verify(service).createUserProjectRelations(Set.of(1L, 2L), Set.of(projectId));
+    }
+
+    @Test
+    public void testCreateProjectUserRelationsShouldReturn400BadRequest() throws Exception {
+        String requestURI = "/api/projects/1/users";
+        String requestBody = objectMapper.writeValueAsString(IdListDto.builder().ids(Set.of()).build());
+
+        mockMvc.perform(post(requestURI).contentType("application/json").content(requestBody))
+                .andExpect(status().isBadRequest())
+                .andDo(print());
+    }
+
+    @Test
+    public void testDeleteUserProjectRelationsShouldReturn404NotFound() throws Exception {
+        Long userId = 123L;
+        String requestURI = "/api/users/" + userId + "/projects";
+        String requestBody = objectMapper.writeValueAsString(IdListDto.builder().ids(Set.of(1L)).build());
+
+        Mockito.doThrow(ModelNotFoundException.class).when(service).deleteUserProjectRelations(Set.of(userId), Set.of(1L));
+
+        mockMvc.perform(delete(requestURI).contentType("application/json").content(requestBody))
+                .andExpect(status().isNotFound())
+                .andDo(print());
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.time_tracker.filter;
+
+import com.example.time_tracker.model.User;
+import com.example.time_tracker.service.auth.JwtService;
+import com.example.time_tracker.service.auth.LoginDetails;
+import com.example.time_tracker.service.auth.LoginDetailsService;
+import com.example.time_tracker.service.auth.TokenClaims;
+import com.example.time_tracker.service.auth.TokenRevocationService;
+import com.example.time_tracker.util.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class JwtAuthFilterTests {
+
+    private static final String SIGNING_KEY = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    private final JwtService jwtService = new JwtService(SIGNING_KEY);
+    private final LoginDetailsService loginDetailsService = Mockito.mock(LoginDetailsService.class);
+    private final TokenRevocationService revocationService = Mockito.mock(TokenRevocationService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtAuthFilter filter = new JwtAuthFilter(jwtService, loginDetailsService, revocationService,
+            meterRegistry);
+
+    @AfterEach
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+//    Токен с id и ролью пользователя в режиме без состояния не требует обращения к базе
+    @Test
+    public void testStatelessTokenIsAuthenticatedFromClaims() throws Exception {
+        ReflectionTestUtils.setField(filter, "stateless", true);
+
+        Authentication authentication = authenticate(jwtService.generateToken(details(42L)));
+
+        LoginDetails principal = assertInstanceOf(LoginDetails.class, authentication.getPrincipal());
+        assertEquals(42L, principal.getUser().getId());
+        assertEquals("John Smith", principal.getUsername());
+        assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+        Mockito.verifyNoInteractions(loginDetailsService);
+    }
+
+//    Токен без id пользователя неполон и проверяется по базе даже в режиме без состояния
+    @Test
+    public void testIncompleteTokenIsAuthenticatedFromDatabase() throws Exception {
+        ReflectionTestUtils.setField(filter, "stateless", true);
+        UserDetails stored = details(42L);
+        Mockito.when(loginDetailsService.loadUserByUsername("John Smith")).thenReturn(stored);
+
+        Authentication authentication = authenticate(jwtService.generateToken(
+                new org.springframework.security.core.userdetails.User("John Smith", "password", List.of())));
+
+        assertEquals(stored, authentication.getPrincipal());
+    }
+
+    @Test
+    public void testStatefulTokenIsAuthenticatedFromDatabase() throws Exception {
+        ReflectionTestUtils.setField(filter, "stateless", false);
+        UserDetails stored = details(42L);
+        Mockito.when(loginDetailsService.loadUserByUsername("John Smith")).thenReturn(stored);
+
+        Authentication authentication = authenticate(jwtService.generateToken(details(42L)));
+
+        assertEquals(stored, authentication.getPrincipal());
+    }
+
+    @Test
+    public void testRevokedTokenIsNotAuthenticated() throws Exception {
+        ReflectionTestUtils.setField(filter, "stateless", true);
+        Mockito.when(revocationService.isRevoked(Mockito.any(TokenClaims.class))).thenReturn(true);
+
+        assertNull(authenticate(jwtService.generateToken(details(42L))));
+        Mockito.verifyNoInteractions(loginDetailsService);
+    }
+
+//    Каждый этап фильтра измеряется своим таймером, запрос без токена не измеряется
+    @Test
+    public void testFilterPhasesAreTimed() throws Exception {
+        ReflectionTestUtils.setField(filter, "stateless", true);
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(0, phaseCount("verify"));
+        assertEquals(0, phaseCount("lookup"));
+
+        authenticate(jwtService.generateToken(details(42L)));
+        assertEquals(1, phaseCount("verify"));
+        assertEquals(1, phaseCount("lookup"));
+    }
+
+//    Отозванный токен проходит оба этапа, отзыв проверяется на этапе lookup
+    @Test
+    public void testRevokedTokenIsTimed() throws Exception {
+        Mockito.when(revocationService.isRevoked(Mockito.any(TokenClaims.class))).thenReturn(true);
+
+        authenticate(jwtService.generateToken(details(42L)));
+
+        assertEquals(1, phaseCount("verify"));
+        assertEquals(1, phaseCount("lookup"));
+    }
+
+    private long phaseCount(String phase) {
+        return meterRegistry.get("time_tracker.auth.filter").tag("phase", phase).timer().count();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(JwtAuthFilter.HEADER_NAME, JwtAuthFilter.BEARER_PREFIX + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static LoginDetails details(Long id) {
+        return new LoginDetails(User.builder().id(id).username("John Smith").role(Role.ROLE_USER).build());
+    }
+}
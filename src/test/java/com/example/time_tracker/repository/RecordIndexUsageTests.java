@@ -0,0 +1,151 @@
+package com.example.time_tracker.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Проверяет, что основные запросы к записям используют составные индексы.
+Перед проверкой в транзакции теста создаются пользователи, проекты и записи
+за несколько месяцев, по ним собирается статистика (ANALYZE), поэтому план строится
+по данным, похожим на рабочие, а не по пустой таблице.
+Запрос берётся из аннотации @Query метода репозитория, параметры заменяются литералами,
+после чего план запроса должен ссылаться на ожидаемый индекс.
+Последовательное сканирование не запрещается: тест проверяет план, который выбирает сам планировщик.
+Все данные откатываются вместе с транзакцией теста.
+Таблица records секционирована, поэтому в плане встречаются индексы секций с именами,
+которые Postgres выбирает сам. Индекс ищется по списку столбцов, а не по имени.
+Если запрос изменится так, что индекс станет неприменим, план будет построен без него и тест упадёт.
+*/
+@SpringBootTest
+@Transactional
+public class RecordIndexUsageTests {
+
+    private static final String START_TIME_INDEX = "(start_time, id)";
+    private static final String USER_INDEX = "(user_id, start_time, id)";
+    private static final String PROJECT_INDEX = "(project_id, start_time, id)";
+    private static final String TIME_RANGE_INDEX = "(user_id, tsrange(start_time, end_time))";
+    private static final Pattern PARAMETER = Pattern.compile(":(\\w+)\\b");
+    private static final int USERS = 100;
+    private static final int PROJECTS = 20;
+    private static final int RECORDS = 60_000;
+    private static final Map<String, String> LITERALS = Map.of(
+            "userId", "-1",
+            "projectId", "-1",
+            "from", "TIMESTAMP '2025-03-01 00:00:00'",
+            "to", "TIMESTAMP '2025-04-01 00:00:00'",
+            "startTime", "TIMESTAMP '9999-12-31 23:59:59'",
+            "id", "9223372036854775807",
+            "limit", "50",
+            "start", "TIMESTAMP '2025-03-10 09:00:00'",
+            "end", "TIMESTAMP '2025-03-10 10:00:00'",
+            "excludeId", "0");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+//    Записи идут каждые 5 минут с 2025-01-01, около семи месяцев, и распределены по пользователям и проектам
+    @BeforeEach
+    public void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO users (id, username, password, email, roles)
+                SELECT -n, 'index-test-' || n, 'password', 'index-test-' || n || '@example.com', 'ROLE_USER'
+                FROM generate_series(1, ?) n""", USERS);
+        jdbcTemplate.update("""
+                INSERT INTO projects (id, name)
+                SELECT -n, 'index-test-' || n FROM generate_series(1, ?) n""", PROJECTS);
+        jdbcTemplate.update("""
+                INSERT INTO records (id, user_id, project_id, description, start_time, end_time)
+                SELECT -n, -(1 + n % ?), -(1 + n % ?), 'record ' || n,
+                       TIMESTAMP '2025-01-01 00:00:00' + n * INTERVAL '5 minutes',
+                       TIMESTAMP '2025-01-01 00:00:00' + n * INTERVAL '5 minutes' + INTERVAL '4 minutes'
+                FROM generate_series(1, ?) n""", USERS, PROJECTS, RECORDS);
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE projects");
+        jdbcTemplate.execute("ANALYZE records");
+    }
+
+    @Test
+    public void testFindAllByUserIdUsesUserIndex() {
+        assertUsesIndex("findAllByUserId", USER_INDEX);
+    }
+
+    @Test
+    public void testFindAllByUserIdAndProjectIdUsesCompositeIndex() {
+        assertUsesIndex("findAllByUserIdAndProjectId", USER_INDEX, PROJECT_INDEX);
+    }
+
+    @Test
+    public void testFindPageUsesStartTimeIndex() {
+        assertUsesIndex("findPage", START_TIME_INDEX);
+    }
+
+    @Test
+    public void testFindPageByUserIdUsesUserIndex() {
+        assertUsesIndex("findPageByUserId", USER_INDEX);
+    }
+
+    @Test
+    public void testFindPageByProjectIdUsesProjectIndex() {
+        assertUsesIndex("findPageByProjectId", PROJECT_INDEX);
+    }
+
+    @Test
+    public void testFindOverlappingIntervalsUsesTimeRangeIndex() {
+        assertUsesIndex("findOverlappingIntervals", TIME_RANGE_INDEX);
+    }
+
+//    Проверяет, что план запроса ссылается хотя бы на один индекс по указанным столбцам
+    private void assertUsesIndex(String methodName, String... columns) {
+        List<String> indexNames = indexNames(columns);
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + withLiterals(nativeQuery(methodName)), String.class);
+        assertTrue(plan.stream().anyMatch(line -> indexNames.stream().anyMatch(line::contains)),
+                () -> methodName + " does not use an index on any of " + Arrays.toString(columns) + ":\n"
+                        + String.join("\n", plan));
+    }
+
+//    Имена индексов таблицы records и ее секций, построенных ровно по указанным столбцам
+    private List<String> indexNames(String... columns) {
+        return jdbcTemplate.queryForList("""
+                        SELECT indexname, indexdef FROM pg_indexes
+                        WHERE tablename = 'records' OR tablename LIKE 'records\\_%'""").stream()
+                .filter(index -> Arrays.stream(columns).anyMatch(((String) index.get("indexdef"))::endsWith))
+                .map(index -> (String) index.get("indexname"))
+                .toList();
+    }
+
+    private static String nativeQuery(String methodName) {
+        return Arrays.stream(RecordRepository.class.getDeclaredMethods())
+                .filter(method -> method.getName().equals(methodName))
+                .map(method -> method.getAnnotation(Query.class))
+                .filter(query -> query != null && query.nativeQuery())
+                .map(Query::value)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No native query for method: " + methodName));
+    }
+
+    private static String withLiterals(String sql) {
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String literal = LITERALS.get(matcher.group(1));
+            if (literal == null)
+                throw new IllegalArgumentException("No literal for parameter: " + matcher.group(1));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(literal));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.time_tracker.repository;
+
+import com.example.time_tracker.service.ProjectService;
+import com.example.time_tracker.service.UserService;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.CacheManager;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Проверяет, что повторное чтение проектов, пользователей и их связей
+обслуживается кэшем второго уровня и кэшем запросов без обращения к базе.
+Каждое чтение выполняется в отдельной транзакции, чтобы не сработал кэш первого уровня.
+Первое чтение заполняет кэш, во время второго число подготовленных запросов не должно измениться.
+Нативные изменяющие запросы объявляют свои таблицы, иначе Hibernate очищает при них все регионы кэша.
+Статистика Hibernate и ее публикация в Micrometer включаются только в профиле dev.
+*/
+@SpringBootTest
+@ActiveProfiles("dev")
+public class SecondLevelCacheTests {
+
+    private static final Long PROJECT_ID = 1L;
+    private static final Long USER_ID = 1L;
+    private static final Long UNASSIGNED_PROJECT_ID = 2L;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private RecordDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+//    У контекста свой менеджер JCache с уникальным фрагментом URI, регионы настроены из hibernate-jcache.conf
+    @Test
+    public void testRegionsUseOwnCacheManager() {
+        CacheManager cacheManager = ((JCacheRegionFactory) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(RegionFactory.class)).getCacheManager();
+
+        assertNotNull(cacheManager.getURI().getFragment());
+        assertEquals(10000, cacheManager.getCache("users").getConfiguration(CaffeineConfiguration.class)
+                .getMaximumSize().orElseThrow());
+    }
+
+//    Статистика публикуется в Micrometer, счетчик подготовленных запросов совпадает со статистикой
+    @Test
+    public void testStatisticsArePublishedToMicrometer() {
+        FunctionCounter prepared = meterRegistry.get("hibernate.statements").tag("status", "prepared").functionCounter();
+        double before = prepared.count();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> projectRepository.count());
+
+        assertTrue(prepared.count() > before);
+        assertEquals(statistics.getPrepareStatementCount(), (long) prepared.count());
+    }
+
+    @Test
+    public void testRepeatedProjectReadsIssueNoSql() {
+        assertSecondReadIssuesNoSql(() -> {
+            projectService.findAll();
+            projectService.findById(PROJECT_ID);
+        });
+    }
+
+    @Test
+    public void testRepeatedProjectUsersReadIssuesNoSql() {
+        assertSecondReadIssuesNoSql(() -> userService.findAllByProjectId(PROJECT_ID));
+    }
+
+    @Test
+    public void testRepeatedUserProjectsReadIssuesNoSql() {
+        assertSecondReadIssuesNoSql(() -> projectService.findAllByUserId(USER_ID));
+    }
+
+    @Test
+    public void testNativeRollupWriteKeepsCachedProjects() {
+        assertSecondReadIssuesNoSql(() -> projectService.findById(PROJECT_ID),
+                () -> new TransactionTemplate(transactionManager).executeWithoutResult(
+                        status -> rollupRepository.deleteByUser(-1L)));
+    }
+
+//    Назначения меняются запросами к user_project в обход коллекций, кэш коллекций должен сбрасываться вручную
+    @Test
+    public void testBulkMembershipChangeEvictsCachedCollections() {
+        int before = projectUserCount(UNASSIGNED_PROJECT_ID);
+        userService.createUserProjectRelations(Set.of(USER_ID), Set.of(UNASSIGNED_PROJECT_ID));
+        try {
+            assertEquals(before + 1, projectUserCount(UNASSIGNED_PROJECT_ID));
+        } finally {
+            userService.deleteUserProjectRelations(Set.of(USER_ID), Set.of(UNASSIGNED_PROJECT_ID));
+        }
+        assertEquals(before, projectUserCount(UNASSIGNED_PROJECT_ID));
+    }
+
+    private int projectUserCount(Long projectId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return Objects.requireNonNull(transaction.execute(
+                status -> projectRepository.findById(projectId).orElseThrow().getUsers().size()));
+    }
+
+    private void assertSecondReadIssuesNoSql(Runnable read) {
+        assertSecondReadIssuesNoSql(read, () -> {});
+    }
+
+//    Между первым и вторым чтением выполняется between, который не должен сбрасывать кэш
+    private void assertSecondReadIssuesNoSql(Runnable read, Runnable between) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> read.run());
+        between.run();
+
+        long before = statistics.getPrepareStatementCount();
+        long hits = statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount();
+        transaction.executeWithoutResult(status -> read.run());
+
+        assertEquals(before, statistics.getPrepareStatementCount(), "Repeated read should not issue SQL");
+        assertTrue(statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount() > hits);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.time_tracker.service.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Пул ограничивает только проверку пароля при входе.
+Проверка в делегате ждет защелку теста, так единственный поток пула остается занят.
+ */
+public class BoundedPasswordEncoderTests {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(), 1, 1);
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    public void testMatchesRunsOnPool() throws Exception {
+        CompletableFuture<Boolean> login = CompletableFuture.supplyAsync(() -> encoder.matches("password", "password"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        assertTrue(login.get(5, TimeUnit.SECONDS));
+    }
+
+//    Регистрация и смена пароля не ждут, пока поток пула занят входом
+    @Test
+    public void testEncodeIsNotQueuedBehindLogins() throws Exception {
+        CompletableFuture.supplyAsync(() -> encoder.matches("password", "password"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals("encoded", assertTimeoutPreemptively(Duration.ofSeconds(5), () -> encoder.encode("password")));
+    }
+
+    private class BlockingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "encoded";
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
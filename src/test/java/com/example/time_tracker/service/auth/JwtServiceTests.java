@@ -0,0 +1,53 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.util.Role;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JwtServiceTests {
+
+    private static final String SIGNING_KEY = "5367566B59703373367639792F423F4528482B4D6251655468576D5A71347437";
+
+    private final JwtService jwtService = new JwtService(SIGNING_KEY);
+
+    @Test
+    public void testVerifyReturnsClaimsOfGeneratedToken() {
+        String token = jwtService.generateToken(new User("John Smith", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        TokenClaims claims = jwtService.verify(token);
+
+        assertEquals("John Smith", claims.getSubject());
+        assertEquals(List.of("ROLE_ADMIN"), claims.getRoles());
+        assertTrue(claims.getExpiration().getTime() > System.currentTimeMillis());
+    }
+
+    @Test
+    public void testVerifyReturnsUserIdOfLoginDetails() {
+        String token = jwtService.generateToken(new LoginDetails(
+                com.example.time_tracker.model.User.builder().id(42L).username("John Smith").role(Role.ROLE_USER).build()));
+
+        TokenClaims claims = jwtService.verify(token);
+
+        assertEquals(42L, claims.getUserId());
+        assertEquals(List.of("ROLE_USER"), claims.getRoles());
+        assertNotNull(claims.getIssuedAt());
+    }
+
+    @Test
+    public void testVerifyRejectsTamperedToken() {
+        String token = jwtService.generateToken(new User("John Smith", "password", List.of()));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+}
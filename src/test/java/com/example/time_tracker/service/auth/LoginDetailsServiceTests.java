@@ -0,0 +1,73 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.model.User;
+import com.example.time_tracker.repository.UserRepository;
+import com.example.time_tracker.util.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+public class LoginDetailsServiceTests {
+
+    private static final String USERNAME = "John Smith";
+
+    @Autowired
+    private LoginDetailsService loginDetailsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void clearCache() {
+        Objects.requireNonNull(cacheManager.getCache(LoginDetailsService.CACHE)).clear();
+    }
+
+    @Test
+    public void testLoadUserByUsernameIsServedFromCache() {
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.of(user()));
+
+        loginDetailsService.loadUserByUsername(USERNAME);
+        LoginDetails details = (LoginDetails) loginDetailsService.loadUserByUsername(USERNAME);
+
+        verify(userRepository, times(1)).findByUsername(USERNAME);
+        assertEquals(1L, details.getUser().getId());
+        assertNull(details.getUser().getProjects());
+    }
+
+    @Test
+    public void testEvictReloadsUser() {
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.of(user()));
+
+        loginDetailsService.loadUserByUsername(USERNAME);
+        loginDetailsService.evict(USERNAME);
+        loginDetailsService.loadUserByUsername(USERNAME);
+
+        verify(userRepository, times(2)).findByUsername(USERNAME);
+    }
+
+    private static User user() {
+        return User.builder()
+                .id(1L)
+                .username(USERNAME)
+                .password("password")
+                .email("john@example.com")
+                .role(Role.ROLE_USER)
+                .build();
+    }
+}
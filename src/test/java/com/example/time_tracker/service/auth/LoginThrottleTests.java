@@ -0,0 +1,87 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.util.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoginThrottleTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final LoginThrottle throttle = new LoginThrottle(1000, 2, 1000, 8000, now::get);
+
+    @Test
+    public void testDelayDoublesAfterFreeAttempts() {
+        fail("John Smith", "10.0.0.1");
+        fail("John Smith", "10.0.0.1");
+        fail("John Smith", "10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("John Smith", "10.0.0.1"));
+
+        now.addAndGet(1000);
+        fail("John Smith", "10.0.0.1");
+        now.addAndGet(1999);
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("John Smith", "10.0.0.1"));
+        now.addAndGet(1);
+        assertDoesNotThrow(() -> throttle.acquire("John Smith", "10.0.0.1"));
+    }
+
+    @Test
+    public void testDelayIsCapped() {
+        for (int i = 0; i < 40; i++) {
+            throttle.failed("John Smith", "10.0.0.1");
+        }
+        now.addAndGet(8000);
+        assertDoesNotThrow(() -> throttle.acquire("John Smith", "10.0.0.1"));
+    }
+
+//    Неудачи с одного адреса не мешают тому же пользователю с другого адреса и другим пользователям
+    @Test
+    public void testFailuresAreCountedPerUsernameAndIp() {
+        for (int i = 0; i < 5; i++) {
+            throttle.failed("John Smith", "10.0.0.1");
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("John Smith", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.acquire("John Smith", "10.0.0.2"));
+        assertDoesNotThrow(() -> throttle.acquire("Jane Smith", "10.0.0.1"));
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        for (int i = 0; i < 5; i++) {
+            throttle.failed("John Smith", "10.0.0.1");
+        }
+        throttle.succeeded("John Smith", "10.0.0.1");
+
+        assertDoesNotThrow(() -> throttle.acquire("John Smith", "10.0.0.1"));
+    }
+
+    @Test
+    public void testCleanupForgetsOldFailures() {
+        for (int i = 0; i < 3; i++) {
+            throttle.failed("John Smith", "10.0.0.1");
+        }
+        now.addAndGet(8001);
+        throttle.cleanup();
+
+        throttle.failed("John Smith", "10.0.0.1");
+        assertDoesNotThrow(() -> throttle.acquire("John Smith", "10.0.0.1"));
+    }
+
+    @Test
+    public void testIpLimit() {
+        LoginThrottle limited = new LoginThrottle(2, 2, 1000, 8000, now::get);
+
+        limited.acquire("John Smith", "10.0.0.1");
+        limited.acquire("Jane Smith", "10.0.0.1");
+        assertThrows(TooManyRequestsException.class, () -> limited.acquire("Joe Smith", "10.0.0.1"));
+    }
+
+    private void fail(String username, String clientIp) {
+        throttle.acquire(username, clientIp);
+        throttle.failed(username, clientIp);
+    }
+}
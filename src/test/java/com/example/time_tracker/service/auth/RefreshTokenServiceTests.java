@@ -0,0 +1,86 @@
+package com.example.time_tracker.service.auth;
+
+import com.example.time_tracker.util.exception.InvalidTokenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+Токены обновления на настоящей базе.
+Пользователь создается перед каждым тестом, его токены удаляются вместе с ним.
+ */
+@SpringBootTest
+public class RefreshTokenServiceTests {
+
+    private static final long USER_ID = -9301L;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void createUser() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, roles) "
+                + "VALUES (?, 'refresh-test', 'password', 'refresh-test@example.com', 'ROLE_USER')", USER_ID);
+    }
+
+    @AfterEach
+    public void deleteUser() {
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+    }
+
+    @Test
+    public void testRotateConsumesToken() {
+        String token = refreshTokenService.issue(USER_ID);
+
+        assertEquals(USER_ID, refreshTokenService.rotate(token));
+        assertEquals(1, countRevoked());
+    }
+
+//    Повторное предъявление отозванного токена отзывает все токены пользователя
+    @Test
+    public void testReusedTokenRevokesAllTokensOfUser() {
+        String token = refreshTokenService.issue(USER_ID);
+        refreshTokenService.rotate(token);
+        String other = refreshTokenService.issue(USER_ID);
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate(token));
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate(other));
+        assertEquals(2, countRevoked());
+    }
+
+//    Неверный секрет не считается повторным предъявлением и не отзывает остальные токены
+    @Test
+    public void testTokenWithWrongSecretIsRejected() {
+        String token = refreshTokenService.issue(USER_ID);
+        String forged = token.substring(0, token.lastIndexOf('.') + 1) + "secret";
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate(forged));
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("malformed"));
+        assertEquals(USER_ID, refreshTokenService.rotate(token));
+    }
+
+    @Test
+    public void testRevokeAll() {
+        String first = refreshTokenService.issue(USER_ID);
+        String second = refreshTokenService.issue(USER_ID);
+
+        refreshTokenService.revokeAll(USER_ID);
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate(first));
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate(second));
+        assertEquals(2, countRevoked());
+    }
+
+    private long countRevoked() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM refresh_tokens WHERE user_id = ? AND revoked", Long.class, USER_ID);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.time_tracker.service.auth;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Отзыв токенов на настоящей базе.
+Пользователи с отрицательными id в базе не создаются: таблица отзывов не ссылается на users.
+Отзыв остается в памяти сервиса до конца жизни контекста, поэтому каждый тест отзывает своего пользователя.
+ */
+@SpringBootTest
+public class TokenRevocationServiceTests {
+
+    private static final long USER_ID = -9201L;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void deleteRevocations() {
+        jdbcTemplate.update("DELETE FROM token_revocations WHERE user_id BETWEEN ? AND ?", USER_ID - 3, USER_ID);
+    }
+
+    @Test
+    public void testTokensIssuedBeforeRevocationAreRevoked() {
+        TokenClaims issuedBefore = claims(USER_ID, System.currentTimeMillis() - 60_000);
+        revocationService.revoke(USER_ID);
+
+        assertTrue(revocationService.isRevoked(issuedBefore));
+        assertTrue(revocationService.isRevoked(claims(USER_ID, System.currentTimeMillis())));
+        assertFalse(revocationService.isRevoked(claims(USER_ID, System.currentTimeMillis() + 2_000)));
+        assertFalse(revocationService.isRevoked(claims(USER_ID - 1, System.currentTimeMillis() - 60_000)));
+    }
+
+    @Test
+    public void testRevocationIsAppliedAfterCommit() {
+        TokenClaims claims = claims(USER_ID - 2, System.currentTimeMillis() - 60_000);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            revocationService.revoke(USER_ID - 2);
+            assertFalse(revocationService.isRevoked(claims));
+        });
+        assertTrue(revocationService.isRevoked(claims));
+    }
+
+    @Test
+    public void testRolledBackRevocationIsNotApplied() {
+        TokenClaims claims = claims(USER_ID - 3, System.currentTimeMillis() - 60_000);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            revocationService.revoke(USER_ID - 3);
+            status.setRollbackOnly();
+        });
+        assertFalse(revocationService.isRevoked(claims));
+    }
+
+//    Отзыв, сделанный другим экземпляром, становится виден после перезагрузки
+    @Test
+    public void testRefreshLoadsRevocationOfAnotherNode() {
+        TokenClaims claims = claims(USER_ID - 1, System.currentTimeMillis() - 60_000);
+        jdbcTemplate.update("INSERT INTO token_revocations (user_id, revoked_before) VALUES (?, ?)",
+                USER_ID - 1, new Timestamp(System.currentTimeMillis() / 1000 * 1000));
+        assertFalse(revocationService.isRevoked(claims));
+
+        revocationService.refresh();
+        assertTrue(revocationService.isRevoked(claims));
+    }
+
+    private static TokenClaims claims(long userId, long issuedAt) {
+        return new TokenClaims("revocation-test", userId, new Date(issuedAt),
+                new Date(issuedAt + JwtService.TOKEN_LIFETIME), List.of("ROLE_USER"));
+    }
+}
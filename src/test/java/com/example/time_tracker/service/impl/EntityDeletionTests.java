@@ -0,0 +1,197 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.Project;
+import com.example.time_tracker.model.User;
+import com.example.time_tracker.model.dto.HoursReportDto;
+import com.example.time_tracker.model.dto.ProjectDto;
+import com.example.time_tracker.service.ProjectMembershipService;
+import com.example.time_tracker.service.ProjectService;
+import com.example.time_tracker.service.ReportService;
+import com.example.time_tracker.service.TimerService;
+import com.example.time_tracker.service.UserService;
+import com.example.time_tracker.service.auth.LoginDetailsService;
+import com.example.time_tracker.service.auth.TokenClaims;
+import com.example.time_tracker.service.auth.TokenRevocationService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Удаление проекта и пользователя отдельными запросами на настоящей базе.
+Перед удалением заполняются все кэши, которые должны быть сброшены: назначения, кэш второго уровня,
+данные аутентификации и запущенный таймер. Пользователь и проекты создаются перед каждым тестом,
+оставшиеся после удаления строки удаляются после него. Эти запросы идут в обход Hibernate,
+поэтому после них кэш второго уровня очищается.
+ */
+@SpringBootTest
+@WithMockUser(username = "deletion-test")
+public class EntityDeletionTests {
+
+    private static final long USER_ID = -9501L;
+    private static final long PROJECT_ID = -9501L;
+    private static final long OTHER_PROJECT_ID = -9502L;
+    private static final String USERNAME = "deletion-test";
+
+    @Autowired
+    private ProjectService projectService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ProjectMembershipService membershipService;
+    @Autowired
+    private ReportService reportService;
+    @Autowired
+    private TimerService timerService;
+    @Autowired
+    private LoginDetailsService loginDetailsService;
+    @Autowired
+    private TokenRevocationService revocationService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Cache entityCache;
+
+    @BeforeEach
+    public void createData() {
+        entityCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, roles) "
+                + "VALUES (?, ?, 'password', 'deletion-test@example.com', 'ROLE_USER')", USER_ID, USERNAME);
+        jdbcTemplate.update("INSERT INTO projects (id, name) VALUES (?, 'deletion-test'), (?, 'deletion-test-other')",
+                PROJECT_ID, OTHER_PROJECT_ID);
+        jdbcTemplate.update("INSERT INTO user_project (user_id, project_id) VALUES (?, ?), (?, ?)",
+                USER_ID, PROJECT_ID, USER_ID, OTHER_PROJECT_ID);
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO records (id, user_id, project_id, description, start_time, end_time) "
+                            + "VALUES (?, ?, ?, 'deletion test', ?, ?)", -9501L - i, USER_ID, PROJECT_ID,
+                    Timestamp.valueOf("2025-03-10 0" + i + ":00:00"), Timestamp.valueOf("2025-03-10 0" + i + ":30:00"));
+        }
+        jdbcTemplate.update("INSERT INTO record_daily_rollup (user_id, project_id, day, total_seconds, record_count) "
+                + "VALUES (?, ?, '2025-03-10', 5400, 3)", USER_ID, PROJECT_ID);
+        jdbcTemplate.update("INSERT INTO active_timers (user_id, project_id, description, start_time) "
+                + "VALUES (?, ?, 'deletion test', now())", USER_ID, PROJECT_ID);
+    }
+
+    @AfterEach
+    public void deleteData() {
+        timerService.evict(USER_ID);
+        jdbcTemplate.update("DELETE FROM records WHERE id BETWEEN ? AND ?", -9503L, -9501L);
+        jdbcTemplate.update("DELETE FROM record_daily_rollup WHERE day = '2025-03-10' "
+                + "AND (user_id = ? OR project_id IN (?, ?) OR user_id IS NULL OR project_id IS NULL)",
+                USER_ID, PROJECT_ID, OTHER_PROJECT_ID);
+        jdbcTemplate.update("DELETE FROM active_timers WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM user_project WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM projects WHERE id IN (?, ?)", PROJECT_ID, OTHER_PROJECT_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM token_revocations WHERE user_id = ?", USER_ID);
+        membershipService.evict(USER_ID);
+        entityCache.evictAllRegions();
+    }
+
+    @Test
+    public void testDeleteProject() {
+        warmCaches();
+        assertTrue(entityCache.containsEntity(Project.class, PROJECT_ID));
+
+        projectService.deleteById(PROJECT_ID);
+
+        assertEquals(0, count("SELECT count(*) FROM projects WHERE id = ?", PROJECT_ID));
+        assertEquals(0, count("SELECT count(*) FROM user_project WHERE project_id = ?", PROJECT_ID));
+        assertEquals(1, count("SELECT count(*) FROM user_project WHERE project_id = ?", OTHER_PROJECT_ID));
+        assertEquals(3, count("SELECT count(*) FROM records WHERE user_id = ? AND project_id IS NULL", USER_ID));
+        assertEquals(0, count("SELECT count(*) FROM record_daily_rollup WHERE project_id = ?", PROJECT_ID));
+        assertEquals(5400, count("SELECT total_seconds FROM record_daily_rollup "
+                + "WHERE user_id = ? AND project_id IS NULL AND day = '2025-03-10'", USER_ID));
+        assertEquals(0, count("SELECT count(*) FROM active_timers WHERE user_id = ?", USER_ID));
+
+        assertFalse(entityCache.containsEntity(Project.class, PROJECT_ID));
+        assertFalse(membershipService.isMember(USER_ID, PROJECT_ID));
+        assertTrue(membershipService.isMember(USER_ID, OTHER_PROJECT_ID));
+        assertEquals(List.of(OTHER_PROJECT_ID),
+                projectService.findAllByUserId(USER_ID).stream().map(ProjectDto::getId).toList());
+        assertTrue(timerService.current().isEmpty());
+    }
+
+    @Test
+    public void testDeleteUser() {
+        warmCaches();
+        loginDetailsService.loadUserByUsername(USERNAME);
+        assertTrue(entityCache.containsEntity(User.class, USER_ID));
+
+        userService.deleteById(USER_ID);
+
+        assertEquals(0, count("SELECT count(*) FROM users WHERE id = ?", USER_ID));
+        assertEquals(0, count("SELECT count(*) FROM user_project WHERE user_id = ?", USER_ID));
+        assertEquals(3, count("SELECT count(*) FROM records WHERE id BETWEEN ? AND ? AND user_id IS NULL",
+                -9503L, -9501L));
+        assertEquals(0, count("SELECT count(*) FROM record_daily_rollup WHERE user_id = ?", USER_ID));
+        assertEquals(5400, count("SELECT total_seconds FROM record_daily_rollup "
+                + "WHERE user_id IS NULL AND project_id = ? AND day = '2025-03-10'", PROJECT_ID));
+        assertEquals(0, count("SELECT count(*) FROM active_timers WHERE user_id = ?", USER_ID));
+
+        assertFalse(entityCache.containsEntity(User.class, USER_ID));
+        assertFalse(membershipService.isMember(USER_ID, PROJECT_ID));
+        assertTrue(userService.findAllByProjectId(PROJECT_ID).isEmpty());
+        assertNull(Objects.requireNonNull(cacheManager.getCache(LoginDetailsService.CACHE)).get(USERNAME));
+        assertTrue(revocationService.isRevoked(new TokenClaims(USERNAME, USER_ID,
+                new Date(System.currentTimeMillis() - 60_000), new Date(), List.of("ROLE_USER"))));
+    }
+
+//    Время удаленного пользователя остается в отчете отдельной строкой с признаком detached
+    @Test
+    @WithMockUser(username = USERNAME, roles = {"USER", "ADMIN"})
+    public void testDeletedUserIsDetachedInReport() {
+        userService.deleteById(USER_ID);
+
+        LocalDate day = LocalDate.of(2025, 3, 10);
+        List<HoursReportDto> rows = reportService.findHours(List.of("user", "project"), day, day).stream()
+                .filter(row -> Objects.equals(row.getProjectId(), PROJECT_ID)).toList();
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0).getUserId());
+        assertTrue(rows.get(0).getDetached());
+        assertEquals(5400, rows.get(0).getTotalSeconds());
+
+        rows = reportService.findHours(List.of("project"), day, day).stream()
+                .filter(row -> Objects.equals(row.getProjectId(), PROJECT_ID)).toList();
+        assertFalse(rows.get(0).getDetached());
+
+        assertNull(reportService.findHours(List.of("day"), day, day).get(0).getDetached());
+    }
+
+//    Назначения, коллекции второго уровня и запущенный таймер попадают в кэши до удаления
+    private void warmCaches() {
+        assertTrue(membershipService.isMember(USER_ID, PROJECT_ID));
+        assertEquals(2, projectService.findAllByUserId(USER_ID).size());
+        assertEquals(1, userService.findAllByProjectId(PROJECT_ID).size());
+        projectService.findById(PROJECT_ID);
+        userService.findById(USER_ID);
+        timerService.refresh();
+        assertTrue(timerService.current().isPresent());
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Long.class, args);
+    }
+}
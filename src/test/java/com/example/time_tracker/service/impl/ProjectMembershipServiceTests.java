@@ -0,0 +1,99 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.repository.ProjectRepository;
+import com.example.time_tracker.service.ProjectMembershipService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+public class ProjectMembershipServiceTests {
+
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private ProjectMembershipService membershipService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private ProjectRepository projectRepository;
+
+    @AfterEach
+    public void clearCache() {
+        Objects.requireNonNull(cacheManager.getCache(ProjectMembershipServiceImpl.CACHE)).clear();
+    }
+
+    @Test
+    public void testIsMemberLoadsProjectsOnce() {
+        when(projectRepository.findIdsByUserId(USER_ID)).thenReturn(List.of(30L, 10L, 20L));
+
+        assertTrue(membershipService.isMember(USER_ID, 10L));
+        assertTrue(membershipService.isMember(USER_ID, 30L));
+        assertFalse(membershipService.isMember(USER_ID, 25L));
+
+        verify(projectRepository, times(1)).findIdsByUserId(USER_ID);
+    }
+
+    @Test
+    public void testEvictReloadsProjects() {
+        when(projectRepository.findIdsByUserId(USER_ID)).thenReturn(List.of(), List.of(10L));
+
+        assertFalse(membershipService.isMember(USER_ID, 10L));
+        membershipService.evict(USER_ID);
+        assertTrue(membershipService.isMember(USER_ID, 10L));
+
+        verify(projectRepository, times(2)).findIdsByUserId(USER_ID);
+    }
+
+    @Test
+    public void testIsMemberForUpdateBypassesCache() {
+        when(projectRepository.findIdsByUserId(USER_ID)).thenReturn(List.of(10L));
+        when(projectRepository.existsMembership(USER_ID, 10L)).thenReturn(true, false);
+
+        assertTrue(membershipService.isMember(USER_ID, 10L));
+        assertTrue(membershipService.isMemberForUpdate(USER_ID, 10L));
+        assertFalse(membershipService.isMemberForUpdate(USER_ID, 10L));
+
+        verify(projectRepository, times(2)).existsMembership(USER_ID, 10L);
+    }
+
+//    Назначения проектов пачки проверяются одним запросом, без кэша
+    @Test
+    public void testFindAssignedForUpdateUsesOneQuery() {
+        Set<Long> projectIds = Set.of(10L, 20L, 30L);
+        when(projectRepository.findIdsByUserIdAndIdIn(USER_ID, projectIds)).thenReturn(List.of(10L, 30L));
+
+        assertEquals(Set.of(10L, 30L), membershipService.findAssignedForUpdate(USER_ID, projectIds));
+        assertEquals(Set.of(), membershipService.findAssignedForUpdate(USER_ID, Set.of()));
+
+        verify(projectRepository, times(1)).findIdsByUserIdAndIdIn(USER_ID, projectIds);
+        verify(projectRepository, times(0)).findIdsByUserId(USER_ID);
+    }
+
+//    Кэш назначений живет меньше общих кэшей, так как на других экземплярах он не сбрасывается
+    @Test
+    public void testCacheUsesShortTimeToLive() {
+        CaffeineCache cache = (CaffeineCache) cacheManager.getCache(ProjectMembershipServiceImpl.CACHE);
+
+        assertEquals(Duration.ofSeconds(30), Objects.requireNonNull(cache).getNativeCache().policy().expireAfterWrite()
+                .orElseThrow().getExpiresAfter());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.dto.RecordBatchItemDto;
+import com.example.time_tracker.model.dto.RecordBatchResultDto;
+import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.service.ProjectMembershipService;
+import com.example.time_tracker.service.RecordService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/*
+Счетчик созданных записей time_tracker.records.created на настоящей базе.
+Счетчик увеличивается только после фиксации транзакции, поэтому откаченные записи не учитываются.
+Пользователь и проект создаются перед каждым тестом и удаляются вместе с записями после него.
+ */
+@SpringBootTest
+@WithMockUser(username = "metrics-test")
+public class RecordMetricsTests {
+
+    private static final long USER_ID = -9701L;
+    private static final long PROJECT_ID = -9701L;
+
+    @Autowired
+    private RecordService recordService;
+    @Autowired
+    private ProjectMembershipService membershipService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void createData() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, roles) "
+                + "VALUES (?, 'metrics-test', 'password', 'metrics-test@example.com', 'ROLE_USER')", USER_ID);
+        jdbcTemplate.update("INSERT INTO projects (id, name) VALUES (?, 'metrics-test')", PROJECT_ID);
+        jdbcTemplate.update("INSERT INTO user_project (user_id, project_id) VALUES (?, ?)", USER_ID, PROJECT_ID);
+    }
+
+    @AfterEach
+    public void deleteData() {
+        jdbcTemplate.update("DELETE FROM records WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM record_daily_rollup WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM user_project WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM projects WHERE id = ?", PROJECT_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+        membershipService.evict(USER_ID);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    public void testCreatedRecordIsCountedAfterCommit() {
+        double before = created();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            recordService.createByProjectId(PROJECT_ID, record("2025-03-10 09:00:00", "2025-03-10 10:00:00"));
+            assertEquals(before, created());
+        });
+
+        assertEquals(before + 1, created());
+    }
+
+    @Test
+    public void testRolledBackRecordIsNotCounted() {
+        double before = created();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            recordService.createByProjectId(PROJECT_ID, record("2025-03-11 09:00:00", "2025-03-11 10:00:00"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, created());
+    }
+
+//    Пачка учитывается с source=batch, элемент с неназначенным проектом отклоняется и не учитывается
+    @Test
+    public void testBatchIsCountedBySource() {
+        double before = created("batch");
+
+        List<RecordBatchResultDto> results = recordService.createBatch(List.of(
+                new RecordBatchItemDto(PROJECT_ID, record("2025-03-12 09:00:00", "2025-03-12 10:00:00")),
+                new RecordBatchItemDto(-9702L, record("2025-03-12 11:00:00", "2025-03-12 12:00:00"))));
+
+        assertNotNull(results.get(0).getRecord());
+        assertNull(results.get(1).getRecord());
+        assertEquals(before + 1, created("batch"));
+    }
+
+    private double created() {
+        return created("single");
+    }
+
+    private double created(String source) {
+        Counter counter = meterRegistry.find("time_tracker.records.created").tag("source", source).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static RecordDto record(String start, String end) {
+        return RecordDto.builder().description("metrics test")
+                .startTime(Timestamp.valueOf(start)).endTime(Timestamp.valueOf(end)).build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.Record;
+import com.example.time_tracker.repository.RecordRepository;
+import com.example.time_tracker.repository.UserRepository;
+import com.example.time_tracker.service.RecordOverlapService;
+import com.example.time_tracker.util.exception.RecordOverlapException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Проверка пересечений на настоящей базе с политикой reject по умолчанию.
+Пользователь создается в базе перед каждым тестом и удаляется вместе с записями после него.
+ */
+@SpringBootTest
+public class RecordOverlapServiceTests {
+
+    private static final long USER_ID = -9001L;
+
+    @Autowired
+    private RecordOverlapService overlapService;
+    @Autowired
+    private RecordRepository recordRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void createUser() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, roles) "
+                + "VALUES (?, 'overlap-test', 'password', 'overlap-test@example.com', 'ROLE_USER')", USER_ID);
+    }
+
+    @AfterEach
+    public void deleteUser() {
+        jdbcTemplate.update("DELETE FROM records WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+    }
+
+    @Test
+    public void testRecordsOfOneTransactionAreCheckedAgainstEachOther() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThrows(RecordOverlapException.class, () -> transaction.executeWithoutResult(status -> {
+            save(record("2025-03-10 09:00:00", "2025-03-10 10:00:00"));
+            overlapService.resolve(record("2025-03-10 09:30:00", "2025-03-10 11:00:00"));
+        }));
+        assertEquals(0, count());
+    }
+
+//    Второй запрос ждет блокировку пользователя, пока первый не зафиксирует запись, и видит ее в базе
+    @Test
+    public void testConcurrentOverlappingRecordsAreRejected() throws Exception {
+        CountDownLatch firstChecked = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    save(record("2025-03-10 09:00:00", "2025-03-10 10:00:00"));
+                    firstChecked.countDown();
+                    sleep(500);
+                }));
+        assertTrue(firstChecked.await(10, TimeUnit.SECONDS));
+
+        assertThrows(RecordOverlapException.class, () -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> save(record("2025-03-10 09:30:00", "2025-03-10 11:00:00"))));
+        first.get(10, TimeUnit.SECONDS);
+        assertEquals(1, count());
+    }
+
+    private void save(Record record) {
+        overlapService.resolve(record);
+        recordRepository.save(record);
+        overlapService.put(record);
+    }
+
+    private Record record(String start, String end) {
+        return Record.builder()
+                .user(userRepository.getReferenceById(USER_ID))
+                .description("overlap test")
+                .startTime(Timestamp.valueOf(start))
+                .endTime(Timestamp.valueOf(end))
+                .build();
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM records WHERE user_id = ?", Long.class, USER_ID);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.service.RecordPartitionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Обслуживание секций на настоящей базе.
+Последняя из создаваемых заранее секций отсоединяется, как будто прошлое обслуживание прервалось,
+и после теста всегда остается присоединенной.
+ */
+@SpringBootTest
+public class RecordPartitionServiceTests {
+
+    @Autowired
+    private RecordPartitionService partitionService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${time-tracker.records.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @AfterEach
+    public void attachPartitions() {
+        partitionService.createAhead();
+    }
+
+    @Test
+    public void testCreateAheadIsIdempotent() {
+        partitionService.createAhead();
+
+        assertEquals(List.of(), partitionService.createAhead());
+    }
+
+    @Test
+    public void testCreateAheadAttachesDetachedPartition() {
+        String name = YearMonth.now().plusMonths(monthsAhead).format(DateTimeFormatter.ofPattern("'records_'yyyy_MM"));
+        partitionService.createAhead();
+        jdbcTemplate.execute("ALTER TABLE records DETACH PARTITION " + name);
+
+        assertEquals(List.of(name), partitionService.createAhead());
+        assertTrue(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM pg_inherits
+                WHERE inhparent = 'records'::regclass AND inhrelid = to_regclass(?))""", Boolean.class, name));
+    }
+
+    @Test
+    public void testMaintainDoesNotThrow() {
+        partitionService.maintain();
+        partitionService.maintain();
+    }
+}
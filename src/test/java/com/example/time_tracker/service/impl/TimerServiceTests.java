@@ -0,0 +1,158 @@
+package com.example.time_tracker.service.impl;
+
+import com.example.time_tracker.model.dto.RecordDto;
+import com.example.time_tracker.model.dto.TimerDto;
+import com.example.time_tracker.service.TimerService;
+import com.example.time_tracker.util.exception.RecordOverlapException;
+import com.example.time_tracker.util.exception.TimerStateException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Таймеры на настоящей базе.
+Другой экземпляр приложения изображается записью в active_timers напрямую
+и сбросом таймера из памяти этого экземпляра.
+Текущий пользователь находится CurrentUser по имени, поэтому контекст общий с другими тестами сервисов.
+ */
+@SpringBootTest
+@WithMockUser(username = "timer-test")
+public class TimerServiceTests {
+
+    private static final long USER_ID = -9101L;
+    private static final long PROJECT_ID = -9101L;
+
+    @Autowired
+    private TimerService timerService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void createUserAndProject() {
+        jdbcTemplate.update("INSERT INTO users (id, username, password, email, roles) "
+                + "VALUES (?, 'timer-test', 'password', 'timer-test@example.com', 'ROLE_USER')", USER_ID);
+        jdbcTemplate.update("INSERT INTO projects (id, name) VALUES (?, 'timer-test')", PROJECT_ID);
+        jdbcTemplate.update("INSERT INTO user_project (user_id, project_id) VALUES (?, ?)", USER_ID, PROJECT_ID);
+    }
+
+    @AfterEach
+    public void deleteUserAndProject() {
+        timerService.evict(USER_ID);
+        jdbcTemplate.update("DELETE FROM active_timers WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM records WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM record_daily_rollup WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM user_project WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM projects WHERE id = ?", PROJECT_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+    }
+
+    @Test
+    public void testStartIsWrittenThroughAndRejectedOnAnotherNode() {
+        timerService.start(TimerDto.builder().projectId(PROJECT_ID).description("timer test").build());
+        assertEquals(1, countTimers());
+        assertTrue(timerService.current().isPresent());
+
+        timerService.evict(USER_ID);
+        assertThrows(TimerStateException.class, () ->
+                timerService.start(TimerDto.builder().projectId(PROJECT_ID).build()));
+    }
+
+    @Test
+    public void testTimerStartedOnAnotherNodeIsLoadedAndStopped() {
+        insertTimer();
+        assertTrue(timerService.current().isEmpty());
+
+        timerService.refresh();
+        assertEquals(PROJECT_ID, timerService.current().orElseThrow().getProjectId());
+
+        timerService.evict(USER_ID);
+        RecordDto record = timerService.stop();
+        assertEquals("timer test", record.getDescription());
+        assertEquals(0, countTimers());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM records WHERE user_id = ?", Long.class, USER_ID));
+    }
+
+//    Таймер, остановленный на другом экземпляре, остается в памяти этого до перезагрузки,
+//    но повторная остановка не создает вторую запись, а новый запуск разрешен
+    @Test
+    public void testTimerStoppedOnAnotherNodeIsNotStoppedAgain() {
+        timerService.start(TimerDto.builder().projectId(PROJECT_ID).description("timer test").build());
+        jdbcTemplate.update("DELETE FROM active_timers WHERE user_id = ?", USER_ID);
+        assertTrue(timerService.current().isPresent());
+
+        assertThrows(TimerStateException.class, () -> timerService.stop());
+        assertTrue(timerService.current().isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM records WHERE user_id = ?", Long.class, USER_ID));
+
+        timerService.start(TimerDto.builder().projectId(PROJECT_ID).build());
+        assertEquals(1, countTimers());
+    }
+
+    @Test
+    public void testStartAfterStopOnAnotherNodeIsAllowed() {
+        timerService.start(TimerDto.builder().projectId(PROJECT_ID).build());
+        jdbcTemplate.update("DELETE FROM active_timers WHERE user_id = ?", USER_ID);
+
+        timerService.start(TimerDto.builder().projectId(PROJECT_ID).description("second").build());
+        assertEquals("second", timerService.current().orElseThrow().getDescription());
+    }
+
+//    Запись, пересекающаяся с другой, не создается, откат возвращает строку таймера, и он продолжает работать
+    @Test
+    public void testFailedStopKeepsTimer() {
+        insertTimer();
+        timerService.refresh();
+        long now = System.currentTimeMillis();
+        jdbcTemplate.update("INSERT INTO records (id, user_id, project_id, description, start_time, end_time) "
+                        + "VALUES (-9101, ?, ?, 'overlapping', ?, ?)", USER_ID, PROJECT_ID,
+                new Timestamp(now - 7_200_000), new Timestamp(now + 3_600_000));
+
+        assertThrows(RecordOverlapException.class, () -> timerService.stop());
+        assertEquals(1, countTimers());
+        assertTrue(timerService.current().isPresent());
+    }
+
+    @Test
+    public void testTimerOfDeletedProjectIsDropped() {
+        insertTimer();
+        timerService.refresh();
+
+        jdbcTemplate.update("DELETE FROM user_project WHERE project_id = ?", PROJECT_ID);
+        jdbcTemplate.update("DELETE FROM projects WHERE id = ?", PROJECT_ID);
+        assertEquals(0, countTimers());
+
+        timerService.refresh();
+        assertTrue(timerService.current().isEmpty());
+    }
+
+    @Test
+    public void testEvictByProjectId() {
+        insertTimer();
+        timerService.refresh();
+
+        timerService.evictByProjectId(PROJECT_ID);
+        assertTrue(timerService.current().isEmpty());
+    }
+
+    private void insertTimer() {
+        jdbcTemplate.update("INSERT INTO active_timers (user_id, project_id, description, start_time) "
+                        + "VALUES (?, ?, 'timer test', ?)", USER_ID, PROJECT_ID,
+                new Timestamp(System.currentTimeMillis() / 1000 * 1000 - 3_600_000));
+    }
+
+    private long countTimers() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM active_timers WHERE user_id = ?", Long.class, USER_ID);
+    }
+}
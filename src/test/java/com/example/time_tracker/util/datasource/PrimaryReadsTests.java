@@ -0,0 +1,67 @@
+package com.example.time_tracker.util.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class PrimaryReadsTests {
+
+    private final PlatformTransactionManager transactionManager = Mockito.mock(PlatformTransactionManager.class);
+
+    @AfterEach
+    public void clearTransaction() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+//    Внутри транзакции только на чтение запрос выполняется в новой изменяющей транзакции, то есть на основной базе
+    @Test
+    public void testReadOnlyTransactionIsSuspendedWithReplicas() {
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("primary", new PrimaryReads(transactionManager, true).read(() -> "primary"));
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        Mockito.verify(transactionManager).getTransaction(definition.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definition.getValue().getPropagationBehavior());
+        assertFalse(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    public void testReadOnlyTransactionIsKeptWithoutReplicas() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("primary", new PrimaryReads(transactionManager, false).read(() -> "primary"));
+        Mockito.verifyNoInteractions(transactionManager);
+    }
+
+//    Вне транзакции репозиторий открыл бы свою транзакцию только на чтение, поэтому открывается изменяющая
+    @Test
+    public void testReadOutsideTransactionUsesPrimaryWithReplicas() {
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+
+        assertEquals("primary", new PrimaryReads(transactionManager, true).read(() -> "primary"));
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        Mockito.verify(transactionManager).getTransaction(definition.capture());
+        assertFalse(definition.getValue().isReadOnly());
+    }
+
+    @Test
+    public void testWritableTransactionIsKept() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertEquals("primary", new PrimaryReads(transactionManager, true).read(() -> "primary"));
+        Mockito.verifyNoInteractions(transactionManager);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.time_tracker.util.datasource;
+
+import com.example.time_tracker.model.Project;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Режим кэша сессии в транзакциях на реплике.
+В тестах реплик нет, поэтому слушатель создается с replicated = true и вызывается
+в начале транзакции вручную, так же как его вызывает менеджер транзакций.
+ */
+@SpringBootTest
+public class ReplicaCacheModeTests {
+
+    private static final long PROJECT_ID = -9601L;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void createProject() {
+        jdbcTemplate.update("INSERT INTO projects (id, name) VALUES (?, 'replica-cache-mode-test')", PROJECT_ID);
+        entityManagerFactory.getCache().evict(Project.class, PROJECT_ID);
+    }
+
+    @AfterEach
+    public void deleteProject() {
+        jdbcTemplate.update("DELETE FROM projects WHERE id = ?", PROJECT_ID);
+        entityManagerFactory.getCache().evict(Project.class, PROJECT_ID);
+    }
+
+    @Test
+    public void testListenerIsRegistered() {
+        assertTrue(((AbstractPlatformTransactionManager) transactionManager).getTransactionExecutionListeners().stream()
+                .anyMatch(ReplicaCacheMode.class::isInstance));
+    }
+
+    @Test
+    public void testCacheModeOfReadOnlyTransaction() {
+        assertEquals(CacheMode.GET, cacheMode(true, new ReplicaCacheMode(entityManagerFactory, true)));
+        assertEquals(CacheMode.NORMAL, cacheMode(false, new ReplicaCacheMode(entityManagerFactory, true)));
+    }
+
+//    Сущность, прочитанная в транзакции только на чтение, не попадает в кэш второго уровня
+    @Test
+    public void testReadOnlyTransactionDoesNotPutIntoCache() {
+        load(true, new ReplicaCacheMode(entityManagerFactory, true));
+
+        assertFalse(entityManagerFactory.getCache().contains(Project.class, PROJECT_ID));
+    }
+
+//    Изменяющие транзакции идут в основную базу и заполняют кэш как обычно
+    @Test
+    public void testWritableTransactionPutsIntoCache() {
+        load(false, new ReplicaCacheMode(entityManagerFactory, true));
+
+        assertTrue(entityManagerFactory.getCache().contains(Project.class, PROJECT_ID));
+    }
+
+    @Test
+    public void testReadOnlyTransactionPutsIntoCacheWithoutReplicas() {
+        load(true, new ReplicaCacheMode(entityManagerFactory, false));
+
+        assertTrue(entityManagerFactory.getCache().contains(Project.class, PROJECT_ID));
+    }
+
+//    Уже закэшированная сущность читается из кэша и в транзакции на реплике
+    @Test
+    public void testReadOnlyTransactionReadsFromCache() {
+        load(false, new ReplicaCacheMode(entityManagerFactory, true));
+        jdbcTemplate.update("UPDATE projects SET name = 'replica-cache-mode-changed' WHERE id = ?", PROJECT_ID);
+
+        assertEquals("replica-cache-mode-test", load(true, new ReplicaCacheMode(entityManagerFactory, true)));
+    }
+
+    private String load(boolean readOnly, ReplicaCacheMode cacheMode) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> {
+            cacheMode.afterBegin(status, null);
+            return entityManager.find(Project.class, PROJECT_ID).getName();
+        });
+    }
+
+    private CacheMode cacheMode(boolean readOnly, ReplicaCacheMode cacheMode) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status -> {
+            cacheMode.afterBegin(status, null);
+            return entityManager.unwrap(Session.class).getCacheMode();
+        });
+    }
+}
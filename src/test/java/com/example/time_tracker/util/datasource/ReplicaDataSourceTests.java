@@ -0,0 +1,80 @@
+package com.example.time_tracker.util.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+
+public class ReplicaDataSourceTests {
+
+    private static final long RETRY = 30_000_000_000L;
+
+    @Test
+    public void testReplicasAreUsedInTurn() throws SQLException {
+        Connection first = Mockito.mock(Connection.class);
+        Connection second = Mockito.mock(Connection.class);
+        ReplicaDataSource dataSource = new ReplicaDataSource(Mockito.mock(DataSource.class),
+                List.of(dataSource(first), dataSource(second)), RETRY);
+
+        assertSame(first, dataSource.getConnection());
+        assertSame(second, dataSource.getConnection());
+        assertSame(first, dataSource.getConnection());
+    }
+
+    @Test
+    public void testFailedReplicaIsSkippedUntilRetryInterval() throws SQLException {
+        AtomicLong now = new AtomicLong();
+        DataSource failing = Mockito.mock(DataSource.class);
+        Mockito.when(failing.getConnection()).thenThrow(new SQLException("Connection refused"));
+        Connection healthy = Mockito.mock(Connection.class);
+        ReplicaDataSource dataSource = new ReplicaDataSource(Mockito.mock(DataSource.class),
+                List.of(failing, dataSource(healthy)), RETRY, now::get);
+
+        for (int i = 0; i < 4; i++)
+            assertSame(healthy, dataSource.getConnection());
+        Mockito.verify(failing, times(1)).getConnection();
+
+//        После интервала реплика снова проверяется
+        now.addAndGet(RETRY);
+        assertSame(healthy, dataSource.getConnection());
+        assertSame(healthy, dataSource.getConnection());
+        Mockito.verify(failing, times(2)).getConnection();
+    }
+
+//    Отрицательные показания часов, которые допускает System.nanoTime, не делают реплики недоступными
+    @Test
+    public void testReplicasAreUsedWithNegativeClock() throws SQLException {
+        AtomicLong now = new AtomicLong(-5 * RETRY);
+        Connection replica = Mockito.mock(Connection.class);
+        Connection primary = Mockito.mock(Connection.class);
+        ReplicaDataSource dataSource = new ReplicaDataSource(dataSource(primary), List.of(dataSource(replica)),
+                RETRY, now::get);
+
+        assertSame(replica, dataSource.getConnection());
+        now.addAndGet(1);
+        assertSame(replica, dataSource.getConnection());
+    }
+
+    @Test
+    public void testFallsBackToPrimaryWhenAllReplicasFail() throws SQLException {
+        DataSource failing = Mockito.mock(DataSource.class);
+        Mockito.when(failing.getConnection()).thenThrow(new SQLException("Connection refused"));
+        Connection primary = Mockito.mock(Connection.class);
+
+        assertSame(primary, new ReplicaDataSource(dataSource(primary), List.of(failing), RETRY).getConnection());
+        assertSame(primary, new ReplicaDataSource(dataSource(primary), List.of(), RETRY).getConnection());
+    }
+
+    private static DataSource dataSource(Connection connection) throws SQLException {
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.time_tracker.util.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedIdsTests {
+
+    private static final long NOW = Instant.parse("2026-10-18T12:00:00Z").toEpochMilli();
+
+    @Test
+    public void testIdsIncreaseWithinMillisecondAndAfterSequenceOverflow() {
+        AtomicLong reads = new AtomicLong();
+//        Часы продвигаются на миллисекунду только после 5000 чтений
+        TimeOrderedIds ids = new TimeOrderedIds(3, () -> NOW + reads.incrementAndGet() / 5000);
+
+        long previous = ids.next();
+        for (int i = 0; i < 10_000; i++) {
+            long id = ids.next();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testIdsIncreaseWhenClockGoesBackwards() {
+        AtomicLong time = new AtomicLong(NOW);
+        TimeOrderedIds ids = new TimeOrderedIds(1, time::get);
+
+        long first = ids.next();
+        time.addAndGet(-60_000);
+        long second = ids.next();
+
+        assertTrue(second > first);
+        assertEquals(Instant.ofEpochMilli(NOW), TimeOrderedIds.timestampOf(second));
+    }
+
+    @Test
+    public void testIdEncodesTimeAndNode() {
+        TimeOrderedIds ids = new TimeOrderedIds(TimeOrderedIds.MAX_NODE, () -> NOW);
+
+        long id = ids.next();
+
+        assertTrue(id > 0);
+        assertEquals(Instant.ofEpochMilli(NOW), TimeOrderedIds.timestampOf(id));
+        assertEquals(TimeOrderedIds.MAX_NODE, (id >>> TimeOrderedIds.SEQUENCE_BITS) & TimeOrderedIds.MAX_NODE);
+    }
+
+    @Test
+    public void testNodeOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIds(TimeOrderedIds.MAX_NODE + 1, () -> NOW));
+    }
+}
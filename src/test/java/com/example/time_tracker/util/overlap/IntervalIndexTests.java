@@ -0,0 +1,57 @@
+package com.example.time_tracker.util.overlap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntervalIndexTests {
+
+    @Test
+    public void testOverlappingFindsOnlyIntersectingIntervals() {
+        IntervalIndex index = IntervalIndex.of(List.of(
+                new IntervalIndex.Interval(1, 0, 100),
+                new IntervalIndex.Interval(2, 100, 200),
+                new IntervalIndex.Interval(3, 150, 160),
+                new IntervalIndex.Interval(4, 300, 400)));
+
+        List<IntervalIndex.Interval> overlapping = index.overlapping(90, 155, null);
+
+        assertEquals(List.of(1L, 2L, 3L), overlapping.stream().map(IntervalIndex.Interval::id).toList());
+        assertTrue(index.overlapping(200, 300, null).isEmpty());
+        assertEquals(List.of(1L), index.overlapping(0, 100, 2L).stream().map(IntervalIndex.Interval::id).toList());
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveDeletesInterval() {
+        IntervalIndex index = new IntervalIndex();
+        index.put(new IntervalIndex.Interval(1, 0, 1000));
+        index.put(new IntervalIndex.Interval(1, 2000, 2100));
+
+        assertEquals(1, index.size());
+        assertTrue(index.overlapping(0, 1000, null).isEmpty());
+
+        index.remove(1);
+
+        assertEquals(0, index.size());
+        assertTrue(index.overlapping(2000, 2100, null).isEmpty());
+    }
+
+    @Test
+    public void testOverlapsReturnsEveryIntersectingPair() {
+        IntervalIndex index = IntervalIndex.of(List.of(
+                new IntervalIndex.Interval(1, 0, 100),
+                new IntervalIndex.Interval(2, 50, 150),
+                new IntervalIndex.Interval(3, 60, 70),
+                new IntervalIndex.Interval(4, 150, 200)));
+
+        List<IntervalIndex.Overlap> overlaps = index.overlaps();
+
+        assertEquals(3, overlaps.size());
+        assertTrue(overlaps.contains(new IntervalIndex.Overlap(
+                new IntervalIndex.Interval(1, 0, 100), new IntervalIndex.Interval(2, 50, 150), 50, 100)));
+        assertTrue(overlaps.stream().noneMatch(o -> o.second().id() == 4));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.time_tracker.util.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TokenBucketLimiterTests {
+
+    private static final long MINUTE = 60_000_000_000L;
+
+    @Test
+    public void testAllowsBurstAndRefillsOverTime() {
+        AtomicLong now = new AtomicLong(-5 * MINUTE);
+        TokenBucketLimiter limiter = new TokenBucketLimiter(16, 5, MINUTE, now::get);
+
+        for (int i = 0; i < 5; i++)
+            assertTrue(limiter.tryAcquire("John Smith"));
+        assertFalse(limiter.tryAcquire("John Smith"));
+
+//        За пятую часть периода восполняется один токен
+        now.addAndGet(MINUTE / 5);
+        assertTrue(limiter.tryAcquire("John Smith"));
+        assertFalse(limiter.tryAcquire("John Smith"));
+
+        now.addAndGet(MINUTE);
+        for (int i = 0; i < 5; i++)
+            assertTrue(limiter.tryAcquire("John Smith"));
+        assertFalse(limiter.tryAcquire("John Smith"));
+    }
+
+    @Test
+    public void testKeysInDifferentStripesAreIndependent() {
+        AtomicLong now = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1 << 16, 1, MINUTE, now::get);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.2"));
+    }
+
+    @Test
+    public void testRejectsInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 1, MINUTE));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(16, 0, MINUTE));
+    }
+}